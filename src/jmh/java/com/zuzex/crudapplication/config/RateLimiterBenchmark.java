@@ -0,0 +1,92 @@
+package com.zuzex.crudapplication.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request cost of {@link RateLimiter} with {@code keys} clients in memory, against a bare
+ * {@link ConcurrentHashMap} lookup of the same keys and one that also updates the looked-up counter,
+ * which pays the same cache misses; {@code churn} draws from ten times as many
+ * clients as the store keeps, so most requests create a bucket and evict another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+    @Param({"100000"})
+    public int keys;
+
+    private String[] clients;
+    private String[] churningClients;
+    private RateLimiter limiter;
+    private RateLimiter churningLimiter;
+    private ConcurrentHashMap<String, AtomicLong> map;
+
+    @Setup
+    public void setUp() {
+        clients = new String[keys];
+        churningClients = new String[keys * 10];
+        for (int i = 0; i < churningClients.length; i++) {
+            churningClients[i] = "user:" + i;
+        }
+        System.arraycopy(churningClients, 0, clients, 0, keys);
+        // Large enough that no request in the run is rejected
+        limiter = new RateLimiter(Integer.MAX_VALUE, Duration.ofHours(1), keys);
+        churningLimiter = new RateLimiter(600, Duration.ofMinutes(1), keys);
+        map = new ConcurrentHashMap<>();
+        for (String client : clients) {
+            limiter.tryAcquire(client);
+            map.put(client, new AtomicLong());
+        }
+    }
+
+    @Benchmark
+    public AtomicLong baselineMapLookup() {
+        return map.get(clients[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public long baselineMapIncrement() {
+        return map.get(clients[ThreadLocalRandom.current().nextInt(keys)]).incrementAndGet();
+    }
+
+    @Benchmark
+    public RateLimiter.Decision tryAcquire() {
+        return limiter.tryAcquire(clients[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RateLimiter.Decision tryAcquireFourThreads() {
+        return limiter.tryAcquire(clients[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision tryAcquireSingleHotKey() {
+        return limiter.tryAcquire(clients[0]);
+    }
+
+    @Benchmark
+    public RateLimiter.Decision tryAcquireWithEvictionChurn() {
+        return churningLimiter.tryAcquire(churningClients[ThreadLocalRandom.current().nextInt(churningClients.length)]);
+    }
+}
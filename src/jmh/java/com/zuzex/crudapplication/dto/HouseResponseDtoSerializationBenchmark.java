@@ -0,0 +1,59 @@
+package com.zuzex.crudapplication.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a house list response with the same mapper defaults Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HouseResponseDtoSerializationBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int houses;
+
+    @Param({"0", "10"})
+    public int residentsPerHouse;
+
+    private ObjectWriter objectWriter;
+    private List<HouseResponseDto> page;
+
+    @Setup
+    public void setUp() {
+        objectWriter = Jackson2ObjectMapperBuilder.json().build().writer();
+        page = new ArrayList<>(houses);
+        for (long id = 1; id <= houses; id++) {
+            List<Long> residentIds = new ArrayList<>(residentsPerHouse);
+            for (long residentId = 1; residentId <= residentsPerHouse; residentId++) {
+                residentIds.add(id * 100 + residentId);
+            }
+            page.add(new HouseResponseDto(id, "ул. Ленина, " + id, id, residentIds, 0L));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectWriter.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,65 @@
+package com.zuzex.crudapplication.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error path cost: building the response for an existing exception, creating the exception
+ * itself (stack trace included) and writing the error body as JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+    private GlobalExceptionHandler handler;
+    private ObjectMapper objectMapper;
+    private HouseException houseException;
+    private ServiceOverloadException overloadException;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        houseException = new HouseException("Не найден дом с id: 1", HttpStatus.NOT_FOUND);
+        overloadException = new ServiceOverloadException("Сервис перегружен", HttpStatus.SERVICE_UNAVAILABLE, 1);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> handleHouseException() {
+        return handler.handleHouseException(houseException);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> handleServiceOverloadException() {
+        return handler.handleServiceOverloadException(overloadException);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> createAndHandleHouseException() {
+        return handler.handleHouseException(new HouseException("Не найден дом с id: 1", HttpStatus.NOT_FOUND));
+    }
+
+    @Benchmark
+    public byte[] handleAndSerializeHouseException() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleHouseException(houseException).getBody());
+    }
+}
@@ -0,0 +1,113 @@
+package com.zuzex.crudapplication.security.config;
+
+import com.zuzex.crudapplication.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Request-path token verification: the pre-cache implementation against the parser-reusing
+ * {@link JwtService} with and without the verified-token cache, plus the individual
+ * {@link JwtService} operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+    static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    static final long EXPIRATION = 86400000L;
+
+    private JwtService cachingJwtService;
+    private JwtService uncachedJwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtService = new JwtService(SECRET_KEY, EXPIRATION, 10_000);
+        uncachedJwtService = new JwtService(SECRET_KEY, EXPIRATION, 0);
+        user = User.builder().id(1L).name("benchmark-user").password("password").build();
+        token = cachingJwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyExtractUsernameAndValidate() {
+        String username = LegacyJwtVerification.extractUsername(token);
+        return username != null && LegacyJwtVerification.isTokenValid(token, user.getUsername());
+    }
+
+    @Benchmark
+    public boolean verifyOnceWithoutCache() {
+        return uncachedJwtService.isTokenValid(uncachedJwtService.verifyToken(token), user);
+    }
+
+    @Benchmark
+    public boolean verifyOnceWithCache() {
+        return cachingJwtService.isTokenValid(cachingJwtService.verifyToken(token), user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return uncachedJwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsernameWithoutCache() {
+        return uncachedJwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValidWithoutCache() {
+        return uncachedJwtService.isTokenValid(token, user);
+    }
+
+    /**
+     * Copy of the original JwtService request path: the key is decoded and a parser is built
+     * for every call, and the token is parsed once for the username and twice more for validation.
+     */
+    static final class LegacyJwtVerification {
+        private LegacyJwtVerification() {
+        }
+
+        static String extractUsername(String token) {
+            return extractClaim(token, Claims::getSubject);
+        }
+
+        static boolean isTokenValid(String token, String expectedUsername) {
+            final String username = extractUsername(token);
+            return username.equals(expectedUsername) && !extractClaim(token, Claims::getExpiration).before(new Date());
+        }
+
+        private static <T> T extractClaim(String token, Function<Claims, T> claimResolver) {
+            Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(getSignInKey())
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            return claimResolver.apply(claims);
+        }
+
+        private static Key getSignInKey() {
+            return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        }
+    }
+}
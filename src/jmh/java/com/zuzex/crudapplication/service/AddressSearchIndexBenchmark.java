@@ -0,0 +1,69 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.repository.HouseRepository;
+import com.zuzex.crudapplication.repository.projection.HouseAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Top-20 address search over a synthetic city of {@code houses} addresses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AddressSearchIndexBenchmark {
+    private static final String[] STREETS = {"Ленина", "Мира", "Садовая", "Гагарина", "Советская",
+            "Молодежная", "Школьная", "Лесная", "Центральная", "Набережная"};
+
+    @Param({"1000000"})
+    public int houses;
+
+    private AddressSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        HouseRepository houseRepository = mock(HouseRepository.class);
+        when(houseRepository.streamAllAddresses()).thenAnswer(invocation -> LongStream.rangeClosed(1, houses)
+                .mapToObj(id -> new HouseAddress(id, address(id))));
+        index = new AddressSearchIndex(houseRepository);
+        index.build();
+    }
+
+    private static String address(long id) {
+        return "г. Город-" + (id % 97) + ", ул. " + STREETS[(int) (id % STREETS.length)] + " " + (id % 1000)
+                + ", д. " + (id / 1000);
+    }
+
+    @Benchmark
+    public long[] selectiveQuery() {
+        return index.search("Школьная 516, д. 42", 20);
+    }
+
+    @Benchmark
+    public long[] misspelledQuery() {
+        return index.search("Шкальная 516, д. 42", 20);
+    }
+
+    @Benchmark
+    public long[] shortQuery() {
+        return index.search("Город-42", 20);
+    }
+}
@@ -0,0 +1,89 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.dto.UserResponseDto;
+import com.zuzex.crudapplication.model.House;
+import com.zuzex.crudapplication.model.User;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping: a single entity with {@code collectionSize} linked entities, and a page of
+ * {@code collectionSize} entities mapped from id links.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityMappingBenchmark {
+
+    @Param({"0", "10", "100", "1000"})
+    public int collectionSize;
+
+    private House house;
+    private User user;
+    private List<House> houses;
+    private List<User> users;
+    private List<IdPair> links;
+
+    @Setup
+    public void setUp() {
+        User owner = User.builder().id(1L).name("owner").age(30).password("password").build();
+        List<User> residents = new ArrayList<>();
+        List<House> ownedHouses = new ArrayList<>();
+        houses = new ArrayList<>();
+        users = new ArrayList<>();
+        links = new ArrayList<>();
+        for (long id = 1; id <= collectionSize; id++) {
+            User resident = User.builder().id(id + 1).name("resident" + id).age(20).password("password").build();
+            House ownedHouse = House.builder().id(id).address("Address " + id).owner(owner).build();
+            residents.add(resident);
+            ownedHouses.add(ownedHouse);
+            houses.add(ownedHouse);
+            users.add(resident);
+            links.add(new IdPair(id, id + 1));
+            links.add(new IdPair(id, 1L));
+        }
+        house = House.builder().id(1L).address("Address").owner(owner).residents(residents).build();
+        user = User.builder().id(1L).name("owner").age(30).password("password")
+                .ownedHouses(ownedHouses)
+                .residences(ownedHouses)
+                .build();
+    }
+
+    @Benchmark
+    public HouseResponseDto mapHouseEntity() {
+        return HouseService.mapHouseEntityToResponseDto(house);
+    }
+
+    @Benchmark
+    public UserResponseDto mapUserEntity() {
+        return UserService.mapUserEntityToResponseDto(user);
+    }
+
+    @Benchmark
+    public List<HouseResponseDto> mapHousePage() {
+        return HouseService.mapHouseEntitiesToResponseDtos(houses, links);
+    }
+
+    @Benchmark
+    public List<UserResponseDto> mapUserPage() {
+        return UserService.mapUserEntitiesToResponseDtos(users, links, links);
+    }
+}
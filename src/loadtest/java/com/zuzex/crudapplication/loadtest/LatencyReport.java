@@ -0,0 +1,89 @@
+package com.zuzex.crudapplication.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency histograms (microseconds) and error counts.
+ */
+final class LatencyReport {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Histogram total = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long elapsedNanos, boolean success) {
+        long micros = Math.min(Math.max(1, elapsedNanos / 1000), HIGHEST_TRACKABLE_MICROS);
+        histograms.get(operation).recordValue(micros);
+        total.recordValue(micros);
+        if (!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void print(PrintStream out, Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        out.printf("%-16s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "mean ms", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() > 0) {
+                printRow(out, operation.label(), histogram, errors.get(operation).sum(), seconds);
+            }
+        }
+        long totalErrors = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        printRow(out, "total", total, totalErrors, seconds);
+    }
+
+    /**
+     * Writes one percentile distribution per operation, loadable by the HdrHistogram plotter.
+     */
+    void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() > 0) {
+                writeHistogram(directory.resolve(operation.label() + ".hgrm"), histogram);
+            }
+        }
+        writeHistogram(directory.resolve("total.hgrm"), total);
+    }
+
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errors, double seconds) {
+        out.printf("%-16s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                label,
+                histogram.getTotalCount(),
+                errors,
+                histogram.getTotalCount() / seconds,
+                histogram.getMean() / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+}
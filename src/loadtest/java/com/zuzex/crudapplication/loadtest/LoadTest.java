@@ -0,0 +1,126 @@
+package com.zuzex.crudapplication.loadtest;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop end-to-end load: every virtual user registers once and then issues operations
+ * from a weighted mix (auth, house CRUD, search, residents) back to back until the deadline.
+ * Latencies are recorded per operation into HdrHistograms; the report prints p50/p99/p999
+ * and writes one {@code .hgrm} file per operation into {@code loadtest.report-dir}.
+ * <p>
+ * Without {@code loadtest.base-url} the application is booted in-process on an embedded
+ * PostgreSQL and seeded with {@code loadtest.seed-users} users and {@code loadtest.seed-houses} houses:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="-Dloadtest.concurrency=200 -Dloadtest.duration-seconds=60"
+ * </pre>
+ * Run it twice, with {@code spring.threads.virtual.enabled} off and on, to compare the
+ * platform-thread and virtual-thread setups; application properties are passed through
+ * {@code loadtest.app-args}, e.g. {@code -Dloadtest.app-args=--spring.threads.virtual.enabled=true}.
+ * <p>
+ * The servlet and reactive read stacks are compared the same way: with {@code -Dloadtest.read-stack=reactive}
+ * the reads (list-houses, get-house, get-user, list-users) go to a second instance of the reactive profile
+ * on the same database, e.g. with {@code -Dloadtest.mix=list-houses=50,get-house=30,get-user=19,list-users=1}
+ * at {@code -Dloadtest.concurrency=2000}. Against running instances the reads go to {@code loadtest.read-base-url}.
+ * <p>
+ * All virtual users share one client address, so the embedded application runs without per-client rate
+ * limits; start running instances with {@code --application.rate-limit.enabled=false} as well.
+ */
+public final class LoadTest {
+    private static final int ID_POOL_CAPACITY = 1 << 16;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.base-url");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 200);
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60));
+        int seedUsers = Integer.getInteger("loadtest.seed-users", 1000);
+        int seedHouses = Integer.getInteger("loadtest.seed-houses", 10000);
+        Operation.Mix mix = Operation.Mix.parse(System.getProperty("loadtest.mix", Operation.DEFAULT_MIX));
+        Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "target/loadtest"));
+        String appArgs = System.getProperty("loadtest.app-args", "");
+        boolean reactiveReads = "reactive".equals(System.getProperty("loadtest.read-stack", "servlet"));
+
+        try (LoadTestEnvironment environment = baseUrl != null
+                ? LoadTestEnvironment.external(baseUrl, System.getProperty("loadtest.read-base-url", baseUrl))
+                : LoadTestEnvironment.embedded(seedUsers, seedHouses, reactiveReads,
+                        appArgs.isBlank() ? new String[0] : appArgs.strip().split("\\s+"))) {
+            VirtualUser.IdPool houseIds = new VirtualUser.IdPool(ID_POOL_CAPACITY);
+            VirtualUser.IdPool userIds = new VirtualUser.IdPool(ID_POOL_CAPACITY);
+            environment.seededHouseIds().forEach(houseIds::add);
+            environment.seededUserIds().forEach(userIds::add);
+
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            List<VirtualUser> users = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                users.add(new VirtualUser(client, environment.baseUrl(), environment.readBaseUrl(), houseIds, userIds));
+            }
+            System.out.printf("Registering %d virtual users against %s, reads served by %s%n", concurrency,
+                    environment.baseUrl(), environment.readBaseUrl());
+            forEach(users, user -> {
+                user.signUp();
+                return null;
+            });
+
+            System.out.printf("Warming up for %ss, mix %s%n", warmup.toSeconds(), mix);
+            run(users, mix, warmup, new LatencyReport());
+            System.out.printf("Measuring for %ss%n", duration.toSeconds());
+            LatencyReport report = new LatencyReport();
+            run(users, mix, duration, report);
+
+            report.print(System.out, duration);
+            report.writeHistograms(reportDir);
+            System.out.printf("Histograms written to %s%n", reportDir.toAbsolutePath());
+        }
+    }
+
+    private static void run(List<VirtualUser> users, Operation.Mix mix, Duration duration, LatencyReport report)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        forEach(users, user -> {
+            while (System.nanoTime() < deadline) {
+                Operation operation = user.feasible(mix.next());
+                long start = System.nanoTime();
+                boolean success;
+                try {
+                    success = user.execute(operation);
+                } catch (Exception e) {
+                    success = false;
+                }
+                report.record(operation, System.nanoTime() - start, success);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs the task for every user on its own virtual thread and waits for all of them.
+     */
+    private static void forEach(List<VirtualUser> users, UserTask task) throws Exception {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> futures = new ArrayList<>(users.size());
+            for (VirtualUser user : users) {
+                futures.add(clients.submit(() -> task.run(user)));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface UserTask {
+        Void run(VirtualUser user) throws Exception;
+    }
+}
@@ -0,0 +1,165 @@
+package com.zuzex.crudapplication.loadtest;
+
+import com.zuzex.crudapplication.CrudApplication;
+import com.zuzex.crudapplication.service.AddressSearchIndex;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The system under test: either an already running instance, or {@link CrudApplication} booted
+ * in-process on an embedded PostgreSQL with a seeded data set. Reads may be served by a second
+ * instance of the reactive profile sharing the database.
+ */
+final class LoadTestEnvironment implements AutoCloseable {
+    static final String SEED_PASSWORD = "password";
+    static final int SEED_STREETS = 500;
+
+    private final String baseUrl;
+    private final String readBaseUrl;
+    private final List<Long> seededUserIds;
+    private final List<Long> seededHouseIds;
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+    private final ConfigurableApplicationContext readContext;
+
+    private LoadTestEnvironment(String baseUrl, String readBaseUrl, List<Long> seededUserIds, List<Long> seededHouseIds,
+                                EmbeddedPostgres postgres, ConfigurableApplicationContext context,
+                                ConfigurableApplicationContext readContext) {
+        this.baseUrl = baseUrl;
+        this.readBaseUrl = readBaseUrl;
+        this.seededUserIds = seededUserIds;
+        this.seededHouseIds = seededHouseIds;
+        this.postgres = postgres;
+        this.context = context;
+        this.readContext = readContext;
+    }
+
+    static LoadTestEnvironment external(String baseUrl, String readBaseUrl) {
+        return new LoadTestEnvironment(baseUrl, readBaseUrl, List.of(), List.of(), null, null, null);
+    }
+
+    /**
+     * @param reactiveReads whether reads go to a second instance of the reactive profile
+     */
+    static LoadTestEnvironment embedded(int users, int houses, boolean reactiveReads, String... applicationArgs)
+            throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        ConfigurableApplicationContext context = null;
+        ConfigurableApplicationContext readContext = null;
+        try {
+            List<String> args = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--management.server.port=0",
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres")
+                            + "&reWriteBatchedInserts=true",
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    // Every virtual user connects from the same address
+                    "--application.rate-limit.enabled=false"));
+            args.addAll(List.of(applicationArgs));
+            context = new SpringApplicationBuilder(CrudApplication.class).run(args.toArray(String[]::new));
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+            List<Long> userIds = seedUsers(jdbcTemplate, context.getBean(PasswordEncoder.class), users);
+            List<Long> houseIds = seedHouses(jdbcTemplate, userIds, houses);
+            // The index was built on ApplicationReadyEvent, before the seed rows existed.
+            context.getBean(AddressSearchIndex.class).build();
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            String readBaseUrl = baseUrl;
+            if (reactiveReads) {
+                List<String> readArgs = new ArrayList<>(List.of(
+                        "--server.port=0",
+                        "--management.server.port=0",
+                        "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                        "--spring.r2dbc.username=postgres",
+                        "--spring.r2dbc.password=postgres"));
+                readArgs.addAll(List.of(applicationArgs));
+                readContext = new SpringApplicationBuilder(CrudApplication.class)
+                        .profiles("reactive")
+                        .run(readArgs.toArray(String[]::new));
+                readBaseUrl = "http://localhost:" + readContext.getEnvironment().getProperty("local.server.port");
+            }
+            return new LoadTestEnvironment(baseUrl, readBaseUrl, userIds, houseIds, postgres, context, readContext);
+        } catch (RuntimeException e) {
+            if (readContext != null) {
+                readContext.close();
+            }
+            if (context != null) {
+                context.close();
+            }
+            postgres.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ids come from the pooled sequences, one value per row, so they never overlap the
+     * id blocks Hibernate reserves from the same sequences.
+     */
+    private static List<Long> seedUsers(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, int users) {
+        jdbcTemplate.update("""
+                INSERT INTO users (id, name, age, password)
+                SELECT nextval('users_seq'), 'seed-' || g, 18 + g % 60, ?
+                FROM generate_series(1, ?) g""", passwordEncoder.encode(SEED_PASSWORD), users);
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE name LIKE 'seed-%' ORDER BY id", Long.class);
+    }
+
+    private static List<Long> seedHouses(JdbcTemplate jdbcTemplate, List<Long> userIds, int houses) {
+        if (userIds.isEmpty() || houses == 0) {
+            return List.of();
+        }
+        List<Object[]> rows = new ArrayList<>(houses);
+        for (int i = 0; i < houses; i++) {
+            rows.add(new Object[]{"Seed street " + (i % SEED_STREETS) + ", building " + i,
+                    userIds.get(i % userIds.size())});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO houses (id, address, owner_id) VALUES (nextval('houses_seq'), ?, ?)",
+                rows);
+        List<Long> houseIds = jdbcTemplate.queryForList(
+                "SELECT id FROM houses WHERE address LIKE 'Seed street %' ORDER BY id", Long.class);
+        List<Object[]> links = new ArrayList<>(houseIds.size() * 2);
+        for (int i = 0; i < houseIds.size(); i++) {
+            links.add(new Object[]{houseIds.get(i), userIds.get((i * 7 + 1) % userIds.size())});
+            links.add(new Object[]{houseIds.get(i), userIds.get((i * 13 + 2) % userIds.size())});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO house_residents (house_id, resident_id) VALUES (?, ?) ON CONFLICT DO NOTHING", links);
+        return houseIds;
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    String readBaseUrl() {
+        return readBaseUrl;
+    }
+
+    List<Long> seededUserIds() {
+        return seededUserIds;
+    }
+
+    List<Long> seededHouseIds() {
+        return seededHouseIds;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (readContext != null) {
+            readContext.close();
+        }
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.zuzex.crudapplication.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Operations a virtual user can issue. {@link Mix} picks them by weight.
+ */
+enum Operation {
+    REGISTER,
+    AUTHENTICATE,
+    LIST_HOUSES,
+    GET_HOUSE,
+    SEARCH_HOUSES,
+    CREATE_HOUSE,
+    UPDATE_HOUSE,
+    DELETE_HOUSE,
+    ADD_RESIDENT,
+    REMOVE_RESIDENT,
+    GET_USER,
+    LIST_USERS;
+
+    static final String DEFAULT_MIX = "list-houses=35,get-house=20,search-houses=10,create-house=10,"
+            + "update-house=5,delete-house=3,add-resident=8,remove-resident=5,authenticate=3,register=1";
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static Operation fromLabel(String label) {
+        return valueOf(label.strip().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    /**
+     * Weighted choice over the operations, parsed from {@code label=weight,label=weight,...}.
+     */
+    record Mix(Operation[] operations, int[] cumulativeWeights) {
+
+        static Mix parse(String spec) {
+            Operation[] operations = new Operation[0];
+            int[] cumulativeWeights = new int[0];
+            int total = 0;
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.split("=");
+                int weight = Integer.parseInt(parts[1].strip());
+                if (weight <= 0) {
+                    continue;
+                }
+                total += weight;
+                operations = Arrays.copyOf(operations, operations.length + 1);
+                cumulativeWeights = Arrays.copyOf(cumulativeWeights, cumulativeWeights.length + 1);
+                operations[operations.length - 1] = fromLabel(parts[0]);
+                cumulativeWeights[cumulativeWeights.length - 1] = total;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("Operation mix has no positive weights: " + spec);
+            }
+            return new Mix(operations, cumulativeWeights);
+        }
+
+        Operation next() {
+            int point = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (point < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder description = new StringBuilder();
+            int previous = 0;
+            for (int i = 0; i < operations.length; i++) {
+                if (i > 0) {
+                    description.append(',');
+                }
+                description.append(operations[i].label()).append('=').append(cumulativeWeights[i] - previous);
+                previous = cumulativeWeights[i];
+            }
+            return description.toString();
+        }
+    }
+}
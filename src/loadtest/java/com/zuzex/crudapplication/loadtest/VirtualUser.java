@@ -0,0 +1,238 @@
+package com.zuzex.crudapplication.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One simulated client: its own account, token, houses and resident links. Not thread-safe;
+ * each virtual user runs on its own thread.
+ */
+final class VirtualUser {
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern USER_ID_CLAIM = Pattern.compile("\"uid\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String readBaseUrl;
+    private final IdPool houseIds;
+    private final IdPool userIds;
+    private final String name;
+    private final Deque<Long> ownHouses = new ArrayDeque<>();
+    private final Deque<long[]> residentLinks = new ArrayDeque<>();
+    private String token;
+
+    VirtualUser(HttpClient client, String baseUrl, String readBaseUrl, IdPool houseIds, IdPool userIds) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.readBaseUrl = readBaseUrl;
+        this.houseIds = houseIds;
+        this.userIds = userIds;
+        this.name = "lt-" + UUID.randomUUID();
+    }
+
+    /**
+     * Registers the account this virtual user works as.
+     */
+    void signUp() throws Exception {
+        HttpResponse<String> response = post("/api/v1/auth/register", registrationBody(name), false);
+        token = extractToken(response);
+        userIds.add(userIdFromToken(token));
+    }
+
+    /**
+     * Replaces an operation that needs state this user does not have yet (an own house,
+     * a resident link) with the operation that creates that state.
+     */
+    Operation feasible(Operation operation) {
+        return switch (operation) {
+            case GET_HOUSE -> houseIds.isEmpty() ? Operation.CREATE_HOUSE : operation;
+            case UPDATE_HOUSE, DELETE_HOUSE -> ownHouses.isEmpty() ? Operation.CREATE_HOUSE : operation;
+            case ADD_RESIDENT -> ownHouses.isEmpty() || userIds.isEmpty() ? Operation.CREATE_HOUSE : operation;
+            case REMOVE_RESIDENT -> residentLinks.isEmpty() ? feasible(Operation.ADD_RESIDENT) : operation;
+            default -> operation;
+        };
+    }
+
+    /**
+     * Runs a {@link #feasible} operation and reports whether the response status was the expected one.
+     */
+    boolean execute(Operation operation) throws Exception {
+        return switch (operation) {
+            case REGISTER -> {
+                HttpResponse<String> response = post("/api/v1/auth/register",
+                        registrationBody("lt-" + UUID.randomUUID()), false);
+                if (response.statusCode() == 200) {
+                    userIds.add(userIdFromToken(extractToken(response)));
+                }
+                yield response.statusCode() == 200;
+            }
+            case AUTHENTICATE -> {
+                HttpResponse<String> response = post("/api/v1/auth/authenticate",
+                        "{\"name\":\"" + name + "\",\"password\":\"" + LoadTestEnvironment.SEED_PASSWORD + "\"}", false);
+                if (response.statusCode() == 200) {
+                    token = extractToken(response);
+                }
+                yield response.statusCode() == 200;
+            }
+            case LIST_HOUSES -> read("/api/v1/houses?limit=20").statusCode() == 200;
+            case GET_HOUSE -> {
+                int status = read("/api/v1/houses/" + houseIds.random()).statusCode();
+                // Houses in the shared pool may have been deleted by their owners meanwhile.
+                yield status == 200 || status == 404;
+            }
+            case SEARCH_HOUSES -> get("/api/v1/houses/search?limit=20&q=street+"
+                    + ThreadLocalRandom.current().nextInt(LoadTestEnvironment.SEED_STREETS)).statusCode() == 200;
+            case CREATE_HOUSE -> {
+                HttpResponse<String> response = post("/api/v1/houses",
+                        "{\"address\":\"LT street " + UUID.randomUUID() + "\"}", true);
+                if (response.statusCode() == 201) {
+                    long id = extractId(response);
+                    ownHouses.addLast(id);
+                    houseIds.add(id);
+                }
+                yield response.statusCode() == 201;
+            }
+            case UPDATE_HOUSE -> {
+                long id = ownHouses.getLast();
+                yield send(HttpRequest.newBuilder(uri("/api/v1/houses/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(
+                                "{\"address\":\"LT street " + UUID.randomUUID() + "\"}")), true).statusCode() == 200;
+            }
+            case DELETE_HOUSE -> {
+                long id = ownHouses.removeFirst();
+                residentLinks.removeIf(link -> link[0] == id);
+                yield send(HttpRequest.newBuilder(uri("/api/v1/houses/" + id)).DELETE(), true).statusCode() == 204;
+            }
+            case ADD_RESIDENT -> {
+                long houseId = ownHouses.getLast();
+                long residentId = userIds.random();
+                for (int attempt = 0; attempt < 5 && isLinked(houseId, residentId); attempt++) {
+                    residentId = userIds.random();
+                }
+                boolean added = put("/api/v1/houses/" + houseId + "/add-resident/" + residentId).statusCode() == 200;
+                if (added) {
+                    residentLinks.addLast(new long[]{houseId, residentId});
+                }
+                yield added;
+            }
+            case REMOVE_RESIDENT -> {
+                long[] link = residentLinks.removeFirst();
+                yield put("/api/v1/houses/" + link[0] + "/remove-resident/" + link[1]).statusCode() == 200;
+            }
+            case GET_USER -> read("/api/v1/users/" + userIds.random()).statusCode() == 200;
+            case LIST_USERS -> read("/api/v1/users").statusCode() == 200;
+        };
+    }
+
+    private boolean isLinked(long houseId, long residentId) {
+        for (long[] link : residentLinks) {
+            if (link[0] == houseId && link[1] == residentId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET(), true);
+    }
+
+    /**
+     * A GET the reactive read stack also serves, sent to the read base URL.
+     */
+    private HttpResponse<String> read(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(readBaseUrl + path)).GET(), true);
+    }
+
+    private HttpResponse<String> put(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).PUT(HttpRequest.BodyPublishers.noBody()), true);
+    }
+
+    private HttpResponse<String> post(String path, String json, boolean authenticated) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)), authenticated);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request, boolean authenticated) throws Exception {
+        if (authenticated) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static String registrationBody(String name) {
+        return "{\"name\":\"" + name + "\",\"age\":30,\"password\":\"" + LoadTestEnvironment.SEED_PASSWORD + "\"}";
+    }
+
+    private static String extractToken(HttpResponse<String> response) {
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("No token in response: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static long extractId(HttpResponse<String> response) {
+        Matcher matcher = ID.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("No id in response: " + response.body());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static long userIdFromToken(String token) {
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        Matcher matcher = USER_ID_CLAIM.matcher(payload);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No user id claim in token payload: " + payload);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Fixed-size ring of ids shared by all virtual users; newer ids overwrite the oldest ones.
+     */
+    static final class IdPool {
+        private final AtomicLongArray ids;
+        private final AtomicLong written = new AtomicLong();
+
+        IdPool(int capacity) {
+            this.ids = new AtomicLongArray(capacity);
+        }
+
+        void add(long id) {
+            ids.set((int) (written.getAndIncrement() % ids.length()), id);
+        }
+
+        boolean isEmpty() {
+            return written.get() == 0;
+        }
+
+        /**
+         * Returns a random known id; callers check {@link #isEmpty()} first.
+         */
+        long random() {
+            int size = (int) Math.min(written.get(), ids.length());
+            return ids.get(ThreadLocalRandom.current().nextInt(size));
+        }
+    }
+}
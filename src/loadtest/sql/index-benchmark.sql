@@ -0,0 +1,77 @@
+-- Plans and latency of the hot lookups on a seeded data set, before and after the
+-- indexes from changesets 4, 5 and 8 of db.changelog-master.yaml.
+--
+-- Works in a scratch schema, so it can be run against any PostgreSQL database:
+--   psql -d crud -v rows=1000000 -f src/loadtest/sql/index-benchmark.sql
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+\set rows 1000000
+\endif
+
+DROP SCHEMA IF EXISTS index_benchmark CASCADE;
+CREATE SCHEMA index_benchmark;
+SET search_path = index_benchmark;
+
+CREATE TABLE users (
+    id       bigint PRIMARY KEY,
+    name     varchar(255),
+    age      int,
+    password varchar(255)
+);
+CREATE TABLE houses (
+    id       bigint PRIMARY KEY,
+    address  varchar(255),
+    owner_id bigint REFERENCES users (id)
+);
+CREATE TABLE house_residents (
+    house_id    bigint NOT NULL REFERENCES houses (id),
+    resident_id bigint NOT NULL REFERENCES users (id),
+    CONSTRAINT pk_house_residents PRIMARY KEY (house_id, resident_id)
+);
+
+INSERT INTO users
+SELECT g, 'user_' || g, 18 + g % 60, '$2a$10$abcdefghijklmnopqrstuuMIh5oGSz0bFrsy6S4G3e0gS2iz2Ve8S'
+FROM generate_series(1, :rows) g;
+INSERT INTO houses
+SELECT g, 'Street ' || (g % 5000) || ', building ' || g, 1 + (g * 7919) % :rows
+FROM generate_series(1, :rows) g;
+INSERT INTO house_residents
+SELECT g, 1 + (g * 104729 + r) % :rows
+FROM generate_series(1, :rows) g, generate_series(1, 2) r
+ON CONFLICT DO NOTHING;
+ANALYZE;
+
+\echo '=== Without indexes ==='
+\timing on
+-- UserRepository.findByName / existsByName (JWT filter on a principal cache miss, registration)
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE name = 'user_777777';
+-- HouseRepository.existsByAddress
+EXPLAIN (ANALYZE, BUFFERS) SELECT 1 FROM houses WHERE lower(address) = lower('Street 1777, building 776777') LIMIT 1;
+-- User.ownedHouses and findOwnedHouseLinks
+EXPLAIN (ANALYZE, BUFFERS) SELECT id FROM houses WHERE owner_id = 4242;
+-- User.residences and findResidenceLinks
+EXPLAIN (ANALYZE, BUFFERS) SELECT house_id FROM house_residents WHERE resident_id = 4242;
+-- HouseRepository.findPageAfter filtered by owner and by address prefix
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM houses WHERE id > 0 AND owner_id = 4242 ORDER BY id LIMIT 51;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM houses WHERE id > 0 AND lower(address) LIKE 'street 177%' ORDER BY id LIMIT 51;
+\timing off
+
+CREATE UNIQUE INDEX uq_users_name ON users (name);
+CREATE INDEX idx_houses_owner_id_id ON houses (owner_id, id);
+CREATE INDEX idx_house_residents_resident_id ON house_residents (resident_id);
+CREATE UNIQUE INDEX uq_houses_address_lower ON houses (lower(address));
+CREATE INDEX idx_houses_address_lower_pattern ON houses (lower(address) text_pattern_ops);
+ANALYZE;
+
+\echo '=== With indexes ==='
+\timing on
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE name = 'user_777777';
+EXPLAIN (ANALYZE, BUFFERS) SELECT 1 FROM houses WHERE lower(address) = lower('Street 1777, building 776777') LIMIT 1;
+EXPLAIN (ANALYZE, BUFFERS) SELECT id FROM houses WHERE owner_id = 4242;
+EXPLAIN (ANALYZE, BUFFERS) SELECT house_id FROM house_residents WHERE resident_id = 4242;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM houses WHERE id > 0 AND owner_id = 4242 ORDER BY id LIMIT 51;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM houses WHERE id > 0 AND lower(address) LIKE 'street 177%' ORDER BY id LIMIT 51;
+\timing off
+
+DROP SCHEMA index_benchmark CASCADE;
@@ -0,0 +1,118 @@
+package com.zuzex.crudapplication.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight request limit that follows the observed latency, in the manner of a gradient limiter.
+ * Every {@code windowSize} completed requests their average latency is compared with a baseline:
+ * while it stays within {@code tolerance} times the baseline the limit grows by about its square root,
+ * beyond that it shrinks proportionally, by at most half. The limit only moves while requests come
+ * close to it. The baseline drops to any lower average and rises only with windows that were not
+ * held back by the limit, or once shrinking the limit no longer helps.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double BASELINE_SMOOTHING = 0.1;
+    private static final double MIN_GRADIENT = 0.5;
+    /** Below it the square-root headroom outweighs even the largest decrease: (1 / (1 - MIN_GRADIENT))^2 */
+    private static final double SHRINK_FLOOR = 4;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int windowSize;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this
+    private long windowLatencySum;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private double baselineLatency;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, int windowSize) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowSize = windowSize;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a permit unless the limit is reached; never blocks.
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Returns the permit and adjusts the limit with the request's latency.
+     */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        sample(latencyNanos, inFlightBefore);
+    }
+
+    /**
+     * Returns the permit of a request whose latency says nothing about the load, e.g. a long streamed export.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long latencyNanos, int inFlightBefore) {
+        windowLatencySum += latencyNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+        if (++windowCount < windowSize) {
+            return;
+        }
+        double latency = (double) windowLatencySum / windowCount;
+        int maxInFlight = windowMaxInFlight;
+        windowLatencySum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        if (baselineLatency == 0) {
+            baselineLatency = latency;
+            return;
+        }
+        if (latency < baselineLatency) {
+            baselineLatency = latency;
+        }
+        if (maxInFlight < limit / 2) {
+            raiseBaseline(latency);
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineLatency / latency));
+        double target = limit * gradient + Math.sqrt(limit);
+        double newLimit = Math.max(minLimit, Math.min(maxLimit,
+                limit * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING));
+        if (gradient < 1.0 && (int) limit <= Math.max(minLimit, SHRINK_FLOOR)) {
+            // The limit cannot push the latency down any further, so it is the service's own latency now
+            raiseBaseline(latency);
+        }
+        limit = newLimit;
+    }
+
+    /**
+     * Queueing inflates the latency of windows held back by the limit, so only the others may raise the baseline.
+     */
+    private void raiseBaseline(double latency) {
+        baselineLatency = baselineLatency * (1 - BASELINE_SMOOTHING) + latency * BASELINE_SMOOTHING;
+    }
+}
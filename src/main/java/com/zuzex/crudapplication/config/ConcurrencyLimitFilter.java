@@ -0,0 +1,147 @@
+package com.zuzex.crudapplication.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sheds load before a request waits for BCrypt or a pooled connection: each endpoint group has an
+ * {@link AdaptiveConcurrencyLimit}, and a request over it is answered 503 with {@code Retry-After}
+ * right away. The current limits are published as {@code http.server.concurrency.limit}.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final Map<EndpointGroup, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> rejections = new EnumMap<>(EndpointGroup.class);
+    private final long retryAfterSeconds;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.retryAfterSeconds = properties.retryAfterSeconds();
+        this.objectMapper = objectMapper;
+        for (EndpointGroup group : EndpointGroup.values()) {
+            ConcurrencyLimitProperties.Limit limit = properties.limitOf(group);
+            AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(limit.initial(), limit.min(),
+                    limit.max(), properties.tolerance(), properties.windowSize());
+            limits.put(group, concurrencyLimit);
+            String tag = group.name().toLowerCase().replace('_', '-');
+            Gauge.builder("http.server.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::limit)
+                    .description("Requests of the group allowed in flight")
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            Gauge.builder("http.server.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::inFlight)
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            rejections.put(group, Counter.builder("http.server.concurrency.rejected")
+                    .description("Requests answered 503 because the group was at its limit")
+                    .tag("group", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointGroup group = EndpointGroup.of(request);
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AdaptiveConcurrencyLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            rejections.get(group).increment();
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(limit));
+            } else {
+                limit.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", "Сервис перегружен, повторите запрос позже");
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    public enum EndpointGroup {
+        /** Registration and login, bound by BCrypt */
+        AUTH,
+        /** Every house mutation, including batch inserts and resident imports */
+        HOUSE_WRITES,
+        /** GET requests of the API, exports included */
+        READS;
+
+        /**
+         * The group of the request, null for requests that are not limited (user writes, actuator, docs).
+         */
+        static EndpointGroup of(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+            if (path.startsWith("/api/v1/auth/")) {
+                return AUTH;
+            }
+            if (!read && (path.equals("/api/v1/houses") || path.startsWith("/api/v1/houses/"))) {
+                return HOUSE_WRITES;
+            }
+            if (read && path.startsWith("/api/v1/")) {
+                return READS;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Holds the permit of a streamed response until it completes.
+     */
+    private record ReleasingListener(AdaptiveConcurrencyLimit limit) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.release();
+        }
+
+        // onComplete follows a timeout or an error as well
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
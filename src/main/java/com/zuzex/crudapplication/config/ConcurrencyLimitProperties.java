@@ -0,0 +1,31 @@
+package com.zuzex.crudapplication.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * In-flight limits of the endpoint groups. Each limit starts at {@code initial} and moves between
+ * {@code min} and {@code max} with the latency, see {@link AdaptiveConcurrencyLimit}.
+ */
+@ConfigurationProperties(prefix = "application.concurrency-limit")
+public record ConcurrencyLimitProperties(@DefaultValue("true") boolean enabled,
+                                         @DefaultValue("1.5") double tolerance,
+                                         @DefaultValue("10") int windowSize,
+                                         @DefaultValue("1") long retryAfterSeconds,
+                                         @DefaultValue Limit auth,
+                                         @DefaultValue Limit houseWrites,
+                                         @DefaultValue Limit reads) {
+
+    public record Limit(@DefaultValue("20") int initial,
+                        @DefaultValue("2") int min,
+                        @DefaultValue("200") int max) {
+    }
+
+    public Limit limitOf(ConcurrencyLimitFilter.EndpointGroup group) {
+        return switch (group) {
+            case AUTH -> auth;
+            case HOUSE_WRITES -> houseWrites;
+            case READS -> reads;
+        };
+    }
+}
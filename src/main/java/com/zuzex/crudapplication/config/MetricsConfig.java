@@ -0,0 +1,21 @@
+package com.zuzex.crudapplication.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times every public method of the classes annotated with {@link io.micrometer.core.annotation.Timed}.
+ * Repository calls, HTTP requests, the Hikari pool and Hibernate statistics are instrumented by the
+ * actuator auto-configuration and exposed together at {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "service.invocations";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,114 @@
+package com.zuzex.crudapplication.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-client rate limits with {@code RateLimit-Limit}, {@code RateLimit-Remaining}, {@code RateLimit-Reset}
+ * and {@code RateLimit-Policy} headers on every limited response; a client over its budget gets 429 with
+ * {@code Retry-After}. Runs after the JWT filter, so API requests are keyed by the user; the auth endpoints
+ * and anonymous requests by the client address, which behind a proxy needs server.forward-headers-strategy.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RESET_HEADER = "RateLimit-Reset";
+    public static final String POLICY_HEADER = "RateLimit-Policy";
+
+    private final RateLimiter authLimiter;
+    private final RateLimiter apiLimiter;
+    private final Counter authRejections;
+    private final Counter apiRejections;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(new RateLimiter(properties.auth().capacity(), properties.auth().period(), properties.maximumKeys()),
+                new RateLimiter(properties.api().capacity(), properties.api().period(), properties.maximumKeys()),
+                objectMapper, meterRegistry);
+    }
+
+    RateLimitFilter(RateLimiter authLimiter, RateLimiter apiLimiter, ObjectMapper objectMapper,
+                    MeterRegistry meterRegistry) {
+        this.authLimiter = authLimiter;
+        this.apiLimiter = apiLimiter;
+        this.objectMapper = objectMapper;
+        this.authRejections = register("auth", authLimiter, meterRegistry);
+        this.apiRejections = register("api", apiLimiter, meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith("/api/v1/")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean auth = path.startsWith("/api/v1/auth/");
+        RateLimiter limiter = auth ? authLimiter : apiLimiter;
+        RateLimiter.Decision decision = limiter.tryAcquire(auth ? addressKey(request) : clientKey(request));
+        response.setHeader(LIMIT_HEADER, String.valueOf(decision.limit()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+        response.setHeader(RESET_HEADER, String.valueOf(decision.resetSeconds()));
+        response.setHeader(POLICY_HEADER, limiter.capacity() + ";w=" + limiter.periodSeconds());
+        if (!decision.allowed()) {
+            (auth ? authRejections : apiRejections).increment();
+            reject(response, decision.retryAfterSeconds());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", "Слишком много запросов, повторите запрос позже");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return "user:" + user.id();
+        }
+        return addressKey(request);
+    }
+
+    private static String addressKey(HttpServletRequest request) {
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static Counter register(String budget, RateLimiter limiter, MeterRegistry meterRegistry) {
+        Gauge.builder("http.server.rate-limit.keys", limiter, RateLimiter::size)
+                .description("Clients with a bucket in memory")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        return Counter.builder("http.server.rate-limit.rejected")
+                .description("Requests answered 429 because the client's budget was used up")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.zuzex.crudapplication.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Request budgets per client: {@code auth} for the whitelisted /api/v1/auth/** endpoints, keyed by
+ * client address, and {@code api} for the rest of the API, keyed by the authenticated user.
+ */
+@ConfigurationProperties(prefix = "application.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("100000") long maximumKeys,
+                                  Budget auth,
+                                  Budget api) {
+    public RateLimitProperties {
+        auth = auth == null ? new Budget(10, Duration.ofMinutes(1)) : auth;
+        api = api == null ? new Budget(600, Duration.ofMinutes(1)) : api;
+    }
+
+    /**
+     * Up to {@code capacity} requests at once, refilled evenly over {@code period}.
+     */
+    public record Budget(long capacity, @DefaultValue("1m") Duration period) {
+        public Budget {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Rate limit capacity must be positive");
+            }
+        }
+    }
+}
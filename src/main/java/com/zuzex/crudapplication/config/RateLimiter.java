@@ -0,0 +1,111 @@
+package com.zuzex.crudapplication.config;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets of {@code capacity} requests refilled evenly over {@code period}, one per key.
+ * A bucket is kept as its theoretical arrival time (GCRA) in a single {@link AtomicLong} and taken
+ * from with a compare-and-set, so keys never contend with each other and a hot key never blocks.
+ * <p>
+ * A bucket whose arrival time has passed is full, the same as no bucket at all, so it can be dropped
+ * without loss. Once {@code maximumKeys} buckets are kept the next new key sweeps those out; if the
+ * clients are all active, arbitrary ones are dropped down to nine tenths, which only forgives them
+ * what they have used.
+ */
+public class RateLimiter {
+    private final long capacity;
+    private final long periodNanos;
+    private final long intervalNanos;
+    private final long maximumKeys;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public RateLimiter(long capacity, Duration period, long maximumKeys) {
+        this(capacity, period, maximumKeys, System::nanoTime);
+    }
+
+    RateLimiter(long capacity, Duration period, long maximumKeys, LongSupplier clock) {
+        this.capacity = capacity;
+        this.periodNanos = period.toNanos();
+        this.intervalNanos = periodNanos / capacity;
+        this.maximumKeys = maximumKeys;
+        this.clock = clock;
+    }
+
+    public Decision tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            if (buckets.mappingCount() >= maximumKeys) {
+                sweep(now);
+            }
+            arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long drainNanos = next - now;
+            if (drainNanos > periodNanos) {
+                return new Decision(false, capacity, 0, seconds(current - now), seconds(drainNanos - periodNanos));
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return new Decision(true, capacity, (periodNanos - drainNanos) / intervalNanos, seconds(drainNanos), 0);
+            }
+        }
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long periodSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(periodNanos);
+    }
+
+    /**
+     * Buckets kept in memory.
+     */
+    public long size() {
+        return buckets.mappingCount();
+    }
+
+    /**
+     * Only one caller sweeps, the others go on past the bound for a moment. A request that races
+     * with the removal of its full bucket may go uncounted.
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(arrival -> arrival.get() <= now);
+            long excess = buckets.mappingCount() - maximumKeys * 9 / 10;
+            Iterator<AtomicLong> iterator = buckets.values().iterator();
+            while (excess-- > 0 && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(0, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * @param remaining         requests left in the bucket after this one
+     * @param resetSeconds      until the bucket is full again
+     * @param retryAfterSeconds until the next request is allowed, 0 when this one was
+     */
+    public record Decision(boolean allowed, long limit, long remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+}
@@ -0,0 +1,309 @@
+package com.zuzex.crudapplication.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of read-only transactions from a healthy replica and every other connection
+ * from the primary. A replica is ejected when it refuses a connection, fails the health check or lags
+ * behind by more than the limit, and is taken back once a health check passes again. A replica whose
+ * pool merely has no free connection is busy, not down: the read goes on to the next replica and,
+ * if none has a connection, to the primary.
+ * <p>
+ * After a user's read-write transaction commits, that user's reads stay on the primary for the
+ * read-your-writes window. The window is kept per instance, so it holds for requests of the user
+ * reaching the same instance.
+ * <p>
+ * The routing needs the transaction's read-only flag, which is only known after the connection of
+ * a JPA transaction has been requested, so {@link #asDataSource()} must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReplicaRouter implements AutoCloseable {
+    private static final long RECENT_WRITERS_MAXIMUM_SIZE = 100_000;
+    private static final String LAG_QUERY = """
+            select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                        else extract(epoch from now() - pg_last_xact_replay_timestamp()) end""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaRoutingProperties.Policy policy;
+    private final Duration maxLag;
+    private final Cache<Long, Boolean> recentWriters;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<Boolean> primaryForced = new ThreadLocal<>();
+    private final DataSource dataSource = new RoutingDataSource();
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param replicas data sources by name, in the order they are tried
+     */
+    public ReplicaRouter(DataSource primary, Map<String, DataSource> replicas, ReplicaRoutingProperties.Policy policy,
+                         Duration maxLag, Duration readYourWritesWindow, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.policy = policy;
+        this.maxLag = maxLag;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(RECENT_WRITERS_MAXIMUM_SIZE)
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        replicas.forEach((name, replicaDataSource) -> {
+            Replica replica = new Replica(name, replicaDataSource);
+            this.replicas.add(replica);
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("1 while the replica takes reads, 0 while it is ejected")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.outstanding", replica.outstanding, AtomicInteger::get)
+                    .description("Connections of the replica checked out by read-only transactions")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * Runs the health check at a fixed delay until the router is closed.
+     */
+    public void startHealthChecks(Duration interval) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-health-"));
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public DataSource asDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Runs the action with every connection taken from the primary, e.g. to find a row the replicas
+     * may not have received yet.
+     */
+    public <T> T onPrimary(Supplier<T> action) {
+        if (primaryForced.get() != null) {
+            return action.get();
+        }
+        primaryForced.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            primaryForced.remove();
+        }
+    }
+
+    Connection getConnection() throws SQLException {
+        Long userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit(userId);
+            return primary.getConnection();
+        }
+        if (primaryForced.get() != null || userId != null && recentWriters.getIfPresent(userId) != null) {
+            return primary.getConnection();
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = select();
+            if (replica == null) {
+                break;
+            }
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                if (!isPoolExhausted(e)) {
+                    replica.eject(e.getMessage());
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Checks every replica with a connection of its own and ejects or takes it back accordingly.
+     */
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid((int) Math.max(1, maxLag.toSeconds()))) {
+                    replica.eject("connection is not valid");
+                    continue;
+                }
+                double lagSeconds = lagSeconds(connection);
+                if (lagSeconds > maxLag.toMillis() / 1000.0) {
+                    replica.eject("replication lag of " + lagSeconds + "s");
+                } else {
+                    replica.admit();
+                }
+            } catch (SQLException e) {
+                if (!isPoolExhausted(e)) {
+                    replica.eject(e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                replica.eject(e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Replica select() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        Replica selected = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica candidate = replicas.get((start + i) % replicas.size());
+            if (!candidate.available) {
+                continue;
+            }
+            if (policy == ReplicaRoutingProperties.Policy.ROUND_ROBIN) {
+                return candidate;
+            }
+            if (selected == null || candidate.outstanding.get() < selected.outstanding.get()) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+
+    private void recordWriteOnCommit(Long userId) {
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.id()
+                : null;
+    }
+
+    /**
+     * Hikari times out a connection request with a {@link SQLTransientConnectionException}, caused by
+     * the last failure to connect if the database is unreachable and by nothing if every connection
+     * is merely in use.
+     */
+    private static boolean isPoolExhausted(SQLException e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    private static double lagSeconds(Connection connection) throws SQLException {
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            return resultSet.getDouble(1);
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean available = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * The connection counts as outstanding until it is closed.
+         */
+        private Connection getConnection() throws SQLException {
+            outstanding.incrementAndGet();
+            Connection connection;
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException | RuntimeException e) {
+                outstanding.decrementAndGet();
+                throw e;
+            }
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                            outstanding.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private void eject(String reason) {
+            if (available) {
+                available = false;
+                log.warn("Replica {} ejected, reads go to the other replicas or the primary: {}", name, reason);
+            }
+        }
+
+        private void admit() {
+            if (!available) {
+                available = true;
+                log.info("Replica {} is healthy again and takes reads", name);
+            }
+        }
+    }
+
+    private final class RoutingDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return ReplicaRouter.this.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Connections are routed with the credentials of each pool");
+        }
+    }
+}
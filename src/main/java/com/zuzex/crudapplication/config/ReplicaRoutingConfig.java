@@ -0,0 +1,80 @@
+package com.zuzex.crudapplication.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured pool with a primary and one pool per replica behind a {@link ReplicaRouter}.
+ * The primary pool keeps the spring.datasource.hikari settings.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "application.datasource.replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRouter replicaRouter(DataSourceProperties dataSourceProperties, ReplicaRoutingProperties properties,
+                                       Environment environment, MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metricsTrackerFactory = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        primary.setMetricsTrackerFactory(metricsTrackerFactory);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.urls().size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(properties.urls().get(i));
+            replica.setUsername(properties.username() != null
+                    ? properties.username() : dataSourceProperties.determineUsername());
+            replica.setPassword(properties.password() != null
+                    ? properties.password() : dataSourceProperties.determinePassword());
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setMaximumPoolSize(properties.maximumPoolSize());
+            replica.setConnectionTimeout(properties.connectionTimeout().toMillis());
+            replica.setReadOnly(true);
+            // An unreachable replica is ejected by the router instead of failing the startup
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(metricsTrackerFactory);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        ReplicaRouter router = new ReplicaRouter(primary, replicas, properties.policy(), properties.maxLag(),
+                properties.readYourWritesWindow(), meterRegistry);
+        if (properties.healthCheckInterval().isPositive()) {
+            router.startHealthChecks(properties.healthCheckInterval());
+        }
+        return router;
+    }
+
+    /**
+     * The physical connection is only requested on the first statement, once the transaction's
+     * read-only flag is set.
+     */
+    @Bean
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return new LazyConnectionDataSourceProxy(replicaRouter.asDataSource());
+    }
+}
@@ -0,0 +1,31 @@
+package com.zuzex.crudapplication.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Replicas serving read-only transactions. Username and password default to the primary's,
+ * the lag limit is only checked on PostgreSQL. A read waits at most {@code connectionTimeout}
+ * for a connection of a busy replica before it tries the next one.
+ */
+@ConfigurationProperties(prefix = "application.datasource.replicas")
+public record ReplicaRoutingProperties(boolean enabled,
+                                       @DefaultValue List<String> urls,
+                                       String username,
+                                       String password,
+                                       @DefaultValue("round-robin") Policy policy,
+                                       @DefaultValue("10") int maximumPoolSize,
+                                       @DefaultValue("500ms") Duration connectionTimeout,
+                                       @DefaultValue("5s") Duration healthCheckInterval,
+                                       @DefaultValue("10s") Duration maxLag,
+                                       @DefaultValue("5s") Duration readYourWritesWindow) {
+
+    public enum Policy {
+        ROUND_ROBIN,
+        /** The replica with the fewest checked out connections, ties taken in turn */
+        LEAST_OUTSTANDING
+    }
+}
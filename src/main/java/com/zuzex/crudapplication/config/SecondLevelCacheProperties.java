@@ -0,0 +1,15 @@
+package com.zuzex.crudapplication.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Size and time-to-live of every entity, collection and query region of the second-level cache.
+ */
+@ConfigurationProperties(prefix = "application.second-level-cache")
+public record SecondLevelCacheProperties(boolean enabled,
+                                         @DefaultValue("10000") long maximumSize,
+                                         @DefaultValue("10m") Duration ttl) {
+}
@@ -0,0 +1,22 @@
+package com.zuzex.crudapplication.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/slowqueries}: the most recent EXPLAIN plans captured for slow queries. The plans show
+ * the bind values of other users' requests, so it is only reachable on the internal management port.
+ */
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+    private final SlowQueryExplainer explainer;
+
+    @ReadOperation
+    public List<SlowQueryExplainer.ExplainedQuery> slowQueries() {
+        return explainer.explained();
+    }
+}
@@ -0,0 +1,123 @@
+package com.zuzex.crudapplication.config;
+
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Captures {@code EXPLAIN (ANALYZE, BUFFERS)}, or a plain {@code EXPLAIN}, of slow queries on a single
+ * background thread and keeps the most recent plans. Explains are dropped while the queue is full, and skipped on
+ * databases other than PostgreSQL.
+ */
+public class SlowQueryExplainer implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final Supplier<DataSource> dataSource;
+    private final int capacity;
+    private final Deque<ExplainedQuery> explained = new ArrayDeque<>();
+    private final ThreadPoolExecutor executor;
+    private volatile Boolean postgres;
+
+    /**
+     * @param dataSource resolved on first use, the explainer is a listener of the same data source
+     */
+    public SlowQueryExplainer(Supplier<DataSource> dataSource, int capacity) {
+        this.dataSource = dataSource;
+        this.capacity = capacity;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                new CustomizableThreadFactory("slow-query-explain-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Queues the statement to be explained with the same bind values; never blocks the caller.
+     *
+     * @param analyze whether to run the statement for its actual plan, only for statements that cannot write
+     */
+    public void submit(String sql, List<ParameterSetOperation> parameters, boolean analyze, String caller,
+                       long durationMillis) {
+        Instant executedAt = Instant.now();
+        executor.execute(() -> {
+            String plan = explain(sql, parameters, analyze);
+            if (plan != null) {
+                add(new ExplainedQuery(executedAt, caller, durationMillis, SqlStatementCounter.shape(sql), plan));
+            }
+        });
+    }
+
+    /**
+     * The captured plans, newest first.
+     */
+    public List<ExplainedQuery> explained() {
+        synchronized (explained) {
+            return List.copyOf(explained);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    void add(ExplainedQuery query) {
+        synchronized (explained) {
+            explained.addFirst(query);
+            while (explained.size() > capacity) {
+                explained.removeLast();
+            }
+        }
+    }
+
+    private String explain(String sql, List<ParameterSetOperation> parameters, boolean analyze) {
+        try (Connection connection = dataSource.get().getConnection()) {
+            if (!isPostgres(connection)) {
+                return null;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + sql)) {
+                for (ParameterSetOperation parameter : parameters) {
+                    parameter.getMethod().invoke(statement, parameter.getArgs());
+                }
+                StringJoiner plan = new StringJoiner("\n");
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                }
+                return plan.toString();
+            }
+        } catch (SQLException | IllegalAccessException e) {
+            return "EXPLAIN failed: " + e.getMessage();
+        } catch (InvocationTargetException e) {
+            return "EXPLAIN failed: " + e.getCause().getMessage();
+        }
+    }
+
+    private boolean isPostgres(Connection connection) throws SQLException {
+        Boolean result = postgres;
+        if (result == null) {
+            result = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            postgres = result;
+        }
+        return result;
+    }
+
+    public record ExplainedQuery(Instant executedAt, String caller, long durationMillis, String sql, String plan) {
+    }
+}
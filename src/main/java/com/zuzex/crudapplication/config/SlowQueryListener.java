@@ -0,0 +1,82 @@
+package com.zuzex.crudapplication.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Logs statements slower than the threshold with their shape, bind count, duration and the
+ * application method that issued them, and hands slow reads to the {@link SlowQueryExplainer}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SlowQueryListener implements QueryExecutionListener {
+    private static final String APPLICATION_PACKAGE = "com.zuzex.crudapplication.";
+    private static final String CONFIG_PACKAGE = APPLICATION_PACKAGE + "config.";
+
+    private final SlowQueryProperties properties;
+    private final SlowQueryExplainer explainer;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long durationMillis = execInfo.getElapsedTime();
+        if (durationMillis < properties.threshold().toMillis()) {
+            return;
+        }
+        String caller = caller();
+        for (QueryInfo queryInfo : queryInfoList) {
+            String sql = queryInfo.getQuery();
+            String keyword = firstKeyword(sql);
+            if (keyword.equals("explain")) {
+                continue;
+            }
+            int binds = queryInfo.getParametersList().stream().mapToInt(List::size).sum();
+            log.warn("slow query duration_ms={} binds={} batch_size={} caller={} sql=\"{}\"",
+                    durationMillis, binds, execInfo.isBatch() ? execInfo.getBatchSize() : 0, caller,
+                    SqlStatementCounter.shape(sql));
+            // EXPLAIN ANALYZE runs the statement again, so only reads are explained. A WITH query may hold
+            // a data-modifying CTE, so it only gets its estimated plan.
+            if (durationMillis >= properties.explainThreshold().toMillis() && !execInfo.isBatch()
+                    && execInfo.getStatementType() != StatementType.CALLABLE
+                    && (keyword.equals("select") || keyword.equals("with"))) {
+                List<List<ParameterSetOperation>> parameters = queryInfo.getParametersList();
+                explainer.submit(sql, parameters.isEmpty() ? List.of() : parameters.get(0), keyword.equals("select"),
+                        caller, durationMillis);
+            }
+        }
+    }
+
+    private static String firstKeyword(String sql) {
+        String stripped = sql.stripLeading();
+        int end = 0;
+        while (end < stripped.length() && Character.isLetter(stripped.charAt(end))) {
+            end++;
+        }
+        return stripped.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The innermost application frame outside of this package and of Spring's generated proxies.
+     */
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(CONFIG_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+}
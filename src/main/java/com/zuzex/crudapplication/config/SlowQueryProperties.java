@@ -0,0 +1,16 @@
+package com.zuzex.crudapplication.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Statements slower than {@code threshold} are logged; SELECTs slower than {@code explainThreshold}
+ * are re-run with {@code EXPLAIN (ANALYZE, BUFFERS)} and the last {@code explainCapacity} plans are kept.
+ */
+@ConfigurationProperties(prefix = "application.slow-query")
+public record SlowQueryProperties(@DefaultValue("200ms") Duration threshold,
+                                  @DefaultValue("1s") Duration explainThreshold,
+                                  @DefaultValue("50") int explainCapacity) {
+}
@@ -0,0 +1,92 @@
+package com.zuzex.crudapplication.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the statements each request executed in the {@code X-Sql-Statements} and
+ * {@code X-Sql-Time-Ms} headers and the {@code http.server.requests.sql.*} meters, and
+ * checks them against the endpoint's budget. Over budget the most repeated statement is
+ * logged; with {@code fail-on-exceed} the request fails instead, which is meant for tests.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final SqlStatementCounter counter;
+    private final SqlStatementBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.Statements statements = counter.start();
+        try {
+            // Headers have to be written before the body commits the response.
+            chain.doFilter(request, new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    writeHeaders(response, statements);
+                }
+            });
+        } finally {
+            counter.stop();
+        }
+        if (!response.isCommitted()) {
+            writeHeaders(response, statements);
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        record(request.getMethod(), uri, statements);
+        checkBudget(request.getMethod() + " " + uri, statements);
+    }
+
+    private void checkBudget(String endpoint, SqlStatementCounter.Statements statements) {
+        int budget = properties.budgetFor(endpoint);
+        if (budget < 0 || statements.count() <= budget) {
+            return;
+        }
+        Map.Entry<String, Integer> mostRepeated = statements.mostRepeated();
+        String message = String.format("%s executed %d SQL statements, budget is %d; most repeated (%d times): %s",
+                endpoint, statements.count(), budget, mostRepeated.getValue(), mostRepeated.getKey());
+        if (properties.failOnExceed()) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    private void record(String method, String uri, SqlStatementCounter.Statements statements) {
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements.count());
+        Timer.builder("http.server.requests.sql.time")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements.nanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void writeHeaders(HttpServletResponse response, SqlStatementCounter.Statements statements) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(statements.count()));
+        response.setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.3f", statements.nanos() / 1e6));
+    }
+}
@@ -0,0 +1,23 @@
+package com.zuzex.crudapplication.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Maximum number of SQL statements per request. Endpoints are keyed by method and mapping pattern,
+ * e.g. {@code GET /api/v1/houses/{id}}; a negative budget disables the check for that endpoint.
+ */
+@ConfigurationProperties(prefix = "application.sql-budget")
+public record SqlStatementBudgetProperties(@DefaultValue("10") int defaultBudget,
+                                           Map<String, Integer> endpoints,
+                                           boolean failOnExceed) {
+    public SqlStatementBudgetProperties {
+        endpoints = endpoints == null ? Map.of() : Map.copyOf(endpoints);
+    }
+
+    public int budgetFor(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaultBudget);
+    }
+}
@@ -0,0 +1,73 @@
+package com.zuzex.crudapplication.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties({SqlStatementBudgetProperties.class, SlowQueryProperties.class})
+public class SqlStatementConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public SlowQueryExplainer slowQueryExplainer(ObjectProvider<DataSource> dataSource, SlowQueryProperties properties) {
+        return new SlowQueryExplainer(dataSource::getObject, properties.explainCapacity());
+    }
+
+    @Bean
+    public SlowQueryListener slowQueryListener(SlowQueryProperties properties, SlowQueryExplainer explainer) {
+        return new SlowQueryListener(properties, explainer);
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryExplainer explainer) {
+        return new SlowQueryEndpoint(explainer);
+    }
+
+    /**
+     * Wraps the pool, so JdbcTemplate statements are counted and timed along with the Hibernate ones.
+     */
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSource(ObjectProvider<SqlStatementCounter> counter,
+                                                                   ObjectProvider<SlowQueryListener> slowQueryListener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(counter.getObject())
+                            .listener(slowQueryListener.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Runs ahead of Spring Security, so the principal lookup of the JWT filter is counted too.
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatementBudgetFilter> sqlStatementBudgetFilter(
+            SqlStatementCounter counter, SqlStatementBudgetProperties properties, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementBudgetFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementBudgetFilter(counter, properties, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,89 @@
+package com.zuzex.crudapplication.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the JDBC executions and their time on the current thread while a scope is open.
+ * Statements run outside of a scope (startup, async exports) are not counted.
+ */
+public class SqlStatementCounter implements QueryExecutionListener {
+    private static final String START_NANOS = SqlStatementCounter.class.getName() + ".start";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    private final ThreadLocal<Statements> current = new ThreadLocal<>();
+
+    public Statements start() {
+        Statements statements = new Statements();
+        current.set(statements);
+        return statements;
+    }
+
+    public void stop() {
+        current.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (current.get() != null) {
+            execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Statements statements = current.get();
+        Long startNanos = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (statements == null || startNanos == null) {
+            return;
+        }
+        statements.nanos += System.nanoTime() - startNanos;
+        for (QueryInfo queryInfo : queryInfoList) {
+            statements.count++;
+            statements.shapes.merge(shape(queryInfo.getQuery()), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * The statement with literals and {@code IN} lists collapsed, so repetitions of one query compare equal.
+     */
+    static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return PLACEHOLDER_LIST.matcher(shape).replaceAll("?, ...");
+    }
+
+    /**
+     * Statements executed within one scope. Only touched by the thread that opened the scope.
+     */
+    public static final class Statements {
+        private final Map<String, Integer> shapes = new HashMap<>();
+        private int count;
+        private long nanos;
+
+        public int count() {
+            return count;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * The most often executed statement shape, the usual suspect of an N+1.
+         */
+        public Map.Entry<String, Integer> mostRepeated() {
+            return shapes.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.zuzex.crudapplication.controller;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strong entity tags carrying the row version of a house or a user.
+ */
+final class ETags {
+    /**
+     * Versions start at zero, so this one never matches.
+     */
+    static final long NO_MATCH = -1L;
+
+    private static final Pattern STRONG_VERSION = Pattern.compile("\\s*\"(\\d{1,18})\"\\s*");
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * The version an {@code If-Match} header expects, or {@code null} without a precondition.
+     * Weak tags and lists of tags are not sent back by clients of this API and never match.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        Matcher matcher = STRONG_VERSION.matcher(ifMatch);
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : NO_MATCH;
+    }
+}
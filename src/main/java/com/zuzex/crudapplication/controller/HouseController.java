@@ -1,8 +1,14 @@
 package com.zuzex.crudapplication.controller;
 
+import com.zuzex.crudapplication.dto.HouseBatchItemResultDto;
+import com.zuzex.crudapplication.dto.HousePageDto;
+import com.zuzex.crudapplication.dto.HousePatchDto;
 import com.zuzex.crudapplication.dto.HouseRequestDto;
 import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.dto.ResidentImportSummaryDto;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
 import com.zuzex.crudapplication.service.HouseService;
+import com.zuzex.crudapplication.service.ResidentImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -10,38 +16,95 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/houses")
 @RequiredArgsConstructor
 @SecurityRequirement(name = "Bearer Authentication")
 public class HouseController {
 
     private final HouseService houseService;
+    private final ResidentImportService residentImportService;
+    private final NdjsonWriter ndjsonWriter;
 
-    @Operation(summary = "Получение списка всех домов")
-    @ApiResponse(responseCode = "200", description = "Список домов успешно получен",
+    @Operation(summary = "Получение страницы списка домов",
+            description = "Постраничная выдача по курсору. Курсор следующей страницы возвращается " +
+                    "в заголовках X-Next-Cursor и Link (rel=\"next\").")
+    @ApiResponse(responseCode = "200", description = "Страница домов успешно получена",
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = HouseResponseDto.class))})
     @GetMapping
-    public ResponseEntity<List<HouseResponseDto>> getAllHouses() {
-        return ResponseEntity.ok(houseService.findAllHouses());
+    public ResponseEntity<List<HouseResponseDto>> getAllHouses(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "50") int limit,
+                                                               @RequestParam(required = false) Long ownerId,
+                                                               @RequestParam(required = false) String addressPrefix) {
+        HousePageDto page = houseService.findHousesPage(cursor, limit, ownerId, addressPrefix);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.nextCursor())
+                    .build()
+                    .toUri();
+            response.header("X-Next-Cursor", page.nextCursor())
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.houses());
     }
 
-    @Operation(summary = "Получение дома по идентификатору")
+    @Operation(summary = "Выгрузка всех домов в формате NDJSON",
+            description = "Потоковая выгрузка: по одному JSON-объекту на строку.")
+    @ApiResponse(responseCode = "200", description = "Выгрузка домов",
+            content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = HouseResponseDto.class))})
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportHouses() {
+        StreamingResponseBody body = outputStream ->
+                houseService.exportHouses(chunk -> ndjsonWriter.writeChunk(outputStream, chunk));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Поиск домов по части адреса",
+            description = "Возвращает до limit домов, наиболее похожих на запрос, по индексу триграмм адресов.")
+    @ApiResponse(responseCode = "200", description = "Результаты поиска",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = HouseResponseDto.class))})
+    @GetMapping("/search")
+    public ResponseEntity<List<HouseResponseDto>> searchHouses(@RequestParam String q,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(houseService.searchHouses(q, limit));
+    }
+
+    @Operation(summary = "Получение дома по идентификатору",
+            description = "Возвращает ETag с версией дома. С заголовком If-None-Match неизмененный дом " +
+                    "не загружается, ответ 304 строится по одной версии.")
     @ApiResponse(responseCode = "200", description = "Дом найден",
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = HouseResponseDto.class))})
+    @ApiResponse(responseCode = "304", description = "Дом не изменился")
     @GetMapping("/{id}")
-    public ResponseEntity<HouseResponseDto> getHouseById(@PathVariable Long id) {
-        return ResponseEntity.ok(houseService.findHouseById(id));
+    public ResponseEntity<HouseResponseDto> getHouseById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(ETags.of(houseService.findHouseVersion(id)))) {
+            return null;
+        }
+        HouseResponseDto house = houseService.findHouseById(id);
+        return ResponseEntity.ok().eTag(ETags.of(house.version())).body(house);
     }
 
 
@@ -50,31 +113,64 @@ public class HouseController {
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = HouseResponseDto.class))})
     @PostMapping
-    public ResponseEntity<HouseResponseDto> createHouse(@RequestBody @Valid HouseRequestDto house) {
-        HouseResponseDto createdHouse = houseService.createHouse(house);
+    public ResponseEntity<HouseResponseDto> createHouse(@RequestBody @Valid HouseRequestDto house,
+                                                        @AuthenticationPrincipal AuthenticatedUser principal) {
+        HouseResponseDto createdHouse = houseService.createHouse(house, principal.id());
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
                 .buildAndExpand(createdHouse.id()).toUri();
         return ResponseEntity.created(location).body(createdHouse);
     }
 
 
-    @Operation(summary = "Обновление информации о доме")
+    @Operation(summary = "Пакетное создание домов",
+            description = "Создает до " + HouseService.MAX_BATCH_SIZE + " домов за один запрос " +
+                    "и возвращает результат по каждому элементу пакета.")
+    @ApiResponse(responseCode = "200", description = "Пакет обработан",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = HouseBatchItemResultDto.class))})
+    @ApiResponse(responseCode = "409", description = "Адрес из пакета зарегистрирован другим запросом")
+    @PostMapping("/batch")
+    public ResponseEntity<List<HouseBatchItemResultDto>> createHouses(@RequestBody List<HouseRequestDto> houses,
+                                                                      @AuthenticationPrincipal AuthenticatedUser principal) {
+        return ResponseEntity.ok(houseService.createHouses(houses, principal.id()));
+    }
+
+
+    @Operation(summary = "Обновление информации о доме",
+            description = "С заголовком If-Match дом обновляется, только если его версия совпадает с ETag.")
     @ApiResponse(responseCode = "200", description = "Информация о доме успешно обновлена",
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = HouseResponseDto.class))})
+    @ApiResponse(responseCode = "412", description = "Дом был изменен после получения")
     @PutMapping("/{id}")
     public ResponseEntity<HouseResponseDto> updateHouse(@PathVariable Long id,
                                                         @RequestBody HouseRequestDto houseRequestDto,
-                                                        Authentication authentication) {
-        return ResponseEntity.ok(houseService.updateHouse(id, houseRequestDto, authentication.getName()));
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                        @AuthenticationPrincipal AuthenticatedUser principal) {
+        HouseResponseDto house = houseService.updateHouse(id, houseRequestDto, principal.id(),
+                ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(house.version())).body(house);
+    }
+
+    @Operation(summary = "Частичное обновление дома",
+            description = "Изменяет только переданные поля одним запросом к базе, если версия дома совпадает " +
+                    "с переданной. Новая версия возвращается в ETag.")
+    @ApiResponse(responseCode = "204", description = "Дом успешно обновлен")
+    @ApiResponse(responseCode = "409", description = "Дом был изменен другим запросом")
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchHouse(@PathVariable Long id,
+                                        @RequestBody @Valid HousePatchDto housePatchDto,
+                                        @AuthenticationPrincipal AuthenticatedUser principal) {
+        Long version = houseService.patchHouse(id, housePatchDto, principal.id());
+        return ResponseEntity.noContent().eTag(ETags.of(version)).build();
     }
 
     @Operation(summary = "Удаление дома")
     @ApiResponse(responseCode = "204", description = "Дом успешно удален")
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteHouse(@PathVariable Long id,
-                                         Authentication authentication) {
-        houseService.deleteHouse(id, authentication.getName());
+                                         @AuthenticationPrincipal AuthenticatedUser principal) {
+        houseService.deleteHouse(id, principal.id());
         return ResponseEntity.noContent().build();
     }
 
@@ -84,8 +180,8 @@ public class HouseController {
     @PutMapping("/{houseId}/add-resident/{residentId}")
     public ResponseEntity<?> addResidentToHouse(@PathVariable Long houseId,
                                                 @PathVariable Long residentId,
-                                                Authentication authentication) {
-        houseService.addResidentToHouse(houseId, residentId, authentication.getName());
+                                                @AuthenticationPrincipal AuthenticatedUser principal) {
+        houseService.addResidentToHouse(houseId, residentId, principal.id());
         return ResponseEntity.ok().build();
     }
 
@@ -95,9 +191,26 @@ public class HouseController {
     @PutMapping("/{houseId}/remove-resident/{residentId}")
     public ResponseEntity<?> removeResidentFromHouse(@PathVariable Long houseId,
                                                      @PathVariable Long residentId,
-                                                     Authentication authentication) {
-        houseService.removeResidentFromHouse(houseId, residentId, authentication.getName());
+                                                     @AuthenticationPrincipal AuthenticatedUser principal) {
+        houseService.removeResidentFromHouse(houseId, residentId, principal.id());
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Массовое добавление жильцов в дома",
+            description = "Принимает пары (houseId, residentId) в формате CSV или NDJSON и обрабатывает их потоково. " +
+                    "CSV может начинаться со строки заголовка houseId,residentId. " +
+                    "Возвращает сводку и до " + ResidentImportService.MAX_REPORTED_REJECTIONS + " отклоненных строк.")
+    @ApiResponse(responseCode = "200", description = "Импорт обработан",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ResidentImportSummaryDto.class))})
+    @PostMapping(value = "/residents/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ResidentImportSummaryDto> importResidents(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                    InputStream body,
+                                                                    @AuthenticationPrincipal AuthenticatedUser principal) {
+        ResidentImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? ResidentImportService.Format.NDJSON
+                : ResidentImportService.Format.CSV;
+        return ResponseEntity.ok(residentImportService.importResidents(body, format, principal.id()));
+    }
+
 }
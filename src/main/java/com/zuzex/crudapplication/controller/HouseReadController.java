@@ -0,0 +1,80 @@
+package com.zuzex.crudapplication.controller;
+
+import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.service.HouseReadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * The read endpoints of {@link HouseController} on WebFlux, served by the reactive profile.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/houses")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+public class HouseReadController {
+
+    private final HouseReadService houseReadService;
+
+    @Operation(summary = "Получение страницы списка домов",
+            description = "Постраничная выдача по курсору. Курсор следующей страницы возвращается " +
+                    "в заголовках X-Next-Cursor и Link (rel=\"next\").")
+    @ApiResponse(responseCode = "200", description = "Страница домов успешно получена",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = HouseResponseDto.class))})
+    @GetMapping
+    public Mono<ResponseEntity<List<HouseResponseDto>>> getAllHouses(@RequestParam(required = false) String cursor,
+                                                                     @RequestParam(defaultValue = "50") int limit,
+                                                                     @RequestParam(required = false) Long ownerId,
+                                                                     @RequestParam(required = false) String addressPrefix,
+                                                                     ServerWebExchange exchange) {
+        return houseReadService.findHousesPage(cursor, limit, ownerId, addressPrefix).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                URI next = UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                        .replaceQueryParam("cursor", page.nextCursor())
+                        .build()
+                        .toUri();
+                response.header("X-Next-Cursor", page.nextCursor())
+                        .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(page.houses());
+        });
+    }
+
+    @Operation(summary = "Получение дома по идентификатору",
+            description = "Возвращает ETag с версией дома. С заголовком If-None-Match неизмененный дом " +
+                    "не загружается, ответ 304 строится по одной версии.")
+    @ApiResponse(responseCode = "200", description = "Дом найден",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = HouseResponseDto.class))})
+    @ApiResponse(responseCode = "304", description = "Дом не изменился")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<HouseResponseDto>> getHouseById(@PathVariable Long id, ServerWebExchange exchange) {
+        if (exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH) == null) {
+            return findHouse(id);
+        }
+        return houseReadService.findHouseVersion(id)
+                .flatMap(version -> exchange.checkNotModified(ETags.of(version)) ? Mono.empty() : findHouse(id));
+    }
+
+    private Mono<ResponseEntity<HouseResponseDto>> findHouse(Long id) {
+        return houseReadService.findHouseById(id)
+                .map(house -> ResponseEntity.ok().eTag(ETags.of(house.version())).body(house));
+    }
+}
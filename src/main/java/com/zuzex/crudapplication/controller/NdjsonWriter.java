@@ -0,0 +1,33 @@
+package com.zuzex.crudapplication.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@Component
+public class NdjsonWriter {
+    private static final byte LINE_SEPARATOR = '\n';
+
+    private final ObjectWriter objectWriter;
+
+    public NdjsonWriter(ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writer();
+    }
+
+    public void writeChunk(OutputStream outputStream, List<?> chunk) {
+        try {
+            for (Object item : chunk) {
+                outputStream.write(objectWriter.writeValueAsBytes(item));
+                outputStream.write(LINE_SEPARATOR);
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.zuzex.crudapplication.controller;
 
+import com.zuzex.crudapplication.dto.UserPatchDto;
 import com.zuzex.crudapplication.dto.UserRequestDto;
 import com.zuzex.crudapplication.dto.UserResponseDto;
 import com.zuzex.crudapplication.model.User;
@@ -12,20 +13,27 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/users")
 @SecurityRequirement(name = "Bearer Authentication")
 public class UserController {
 
     private final UserService userService;
+    private final NdjsonWriter ndjsonWriter;
     @Operation(summary = "Получение списка всех пользователей")
     @ApiResponse(responseCode = "200", description = "Список пользователей успешно получен",
             content = {@Content(mediaType = "application/json",
@@ -34,13 +42,34 @@ public class UserController {
     public ResponseEntity<List<UserResponseDto>> getAllUsers() {
         return ResponseEntity.ok(userService.findAllUsers());
     }
-    @Operation(summary = "Получение пользователя по идентификатору")
+    @Operation(summary = "Выгрузка всех пользователей в формате NDJSON",
+            description = "Потоковая выгрузка: по одному JSON-объекту на строку.")
+    @ApiResponse(responseCode = "200", description = "Выгрузка пользователей",
+            content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = UserResponseDto.class))})
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = outputStream ->
+                userService.exportUsers(chunk -> ndjsonWriter.writeChunk(outputStream, chunk));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    @Operation(summary = "Получение пользователя по идентификатору",
+            description = "Возвращает ETag с версией пользователя. С заголовком If-None-Match неизмененный " +
+                    "пользователь не загружается, ответ 304 строится по одной версии.")
     @ApiResponse(responseCode = "200", description = "Пользователь найден",
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = UserResponseDto.class))})
+    @ApiResponse(responseCode = "304", description = "Пользователь не изменился")
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponseDto> getUserById(@PathVariable @NotNull Long id) {
-        return ResponseEntity.ok(userService.getUserById(id));
+    public ResponseEntity<UserResponseDto> getUserById(@PathVariable @NotNull Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(ETags.of(userService.findUserVersion(id)))) {
+            return null;
+        }
+        UserResponseDto user = userService.getUserById(id);
+        return ResponseEntity.ok().eTag(ETags.of(user.version())).body(user);
     }
     @Operation(summary = "Создание нового пользователя")
     @ApiResponse(responseCode = "201", description = "Пользователь успешно создан",
@@ -53,14 +82,28 @@ public class UserController {
                 .buildAndExpand(createdUser.id()).toUri();
         return ResponseEntity.created(location).body(createdUser);
     }
-    @Operation(summary = "Обновление информации о пользователе")
+    @Operation(summary = "Обновление информации о пользователе",
+            description = "С заголовком If-Match пользователь обновляется, только если его версия совпадает с ETag.")
     @ApiResponse(responseCode = "200", description = "Информация о пользователе успешно обновлена",
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = UserResponseDto.class))})
+    @ApiResponse(responseCode = "412", description = "Пользователь был изменен после получения")
     @PutMapping("/{id}")
     public ResponseEntity<UserResponseDto> updateUser(@PathVariable Long id,
-                                                      @RequestBody @Valid UserRequestDto user) {
-        return ResponseEntity.ok(userService.updateUser(id, user));
+                                                      @RequestBody @Valid UserRequestDto user,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserResponseDto updatedUser = userService.updateUser(id, user, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedUser.version())).body(updatedUser);
+    }
+    @Operation(summary = "Частичное обновление пользователя",
+            description = "Изменяет только переданные поля одним запросом к базе, если версия пользователя " +
+                    "совпадает с переданной. Новая версия возвращается в ETag.")
+    @ApiResponse(responseCode = "204", description = "Пользователь успешно обновлен")
+    @ApiResponse(responseCode = "409", description = "Пользователь был изменен другим запросом")
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchUser(@PathVariable Long id, @RequestBody @Valid UserPatchDto userPatchDto) {
+        Long version = userService.patchUser(id, userPatchDto);
+        return ResponseEntity.noContent().eTag(ETags.of(version)).build();
     }
     @Operation(summary = "Удаление пользователя")
     @ApiResponse(responseCode = "204", description = "Пользователь успешно удален")
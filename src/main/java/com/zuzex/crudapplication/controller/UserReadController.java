@@ -0,0 +1,62 @@
+package com.zuzex.crudapplication.controller;
+
+import com.zuzex.crudapplication.dto.UserResponseDto;
+import com.zuzex.crudapplication.service.UserReadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The read endpoints of {@link UserController} on WebFlux, served by the reactive profile.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/users")
+@SecurityRequirement(name = "Bearer Authentication")
+public class UserReadController {
+    private final UserReadService userReadService;
+
+    @Operation(summary = "Получение списка всех пользователей",
+            description = "Список передается потоком по мере чтения из базы: JSON-массивом " +
+                    "или, с Accept: application/x-ndjson, по одному объекту на строку.")
+    @ApiResponse(responseCode = "200", description = "Список пользователей успешно получен",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = UserResponseDto.class))})
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<UserResponseDto> getAllUsers() {
+        return userReadService.findAllUsers();
+    }
+
+    @Operation(summary = "Получение пользователя по идентификатору",
+            description = "Возвращает ETag с версией пользователя. С заголовком If-None-Match неизмененный " +
+                    "пользователь не загружается, ответ 304 строится по одной версии.")
+    @ApiResponse(responseCode = "200", description = "Пользователь найден",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = UserResponseDto.class))})
+    @ApiResponse(responseCode = "304", description = "Пользователь не изменился")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserResponseDto>> getUserById(@PathVariable Long id, ServerWebExchange exchange) {
+        if (exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH) == null) {
+            return findUser(id);
+        }
+        return userReadService.findUserVersion(id)
+                .flatMap(version -> exchange.checkNotModified(ETags.of(version)) ? Mono.empty() : findUser(id));
+    }
+
+    private Mono<ResponseEntity<UserResponseDto>> findUser(Long id) {
+        return userReadService.getUserById(id)
+                .map(user -> ResponseEntity.ok().eTag(ETags.of(user.version())).body(user));
+    }
+}
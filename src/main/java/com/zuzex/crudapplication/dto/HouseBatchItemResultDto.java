@@ -0,0 +1,7 @@
+package com.zuzex.crudapplication.dto;
+
+public record HouseBatchItemResultDto(int index,
+                                      String address,
+                                      Long id,
+                                      String error) {
+}
@@ -0,0 +1,7 @@
+package com.zuzex.crudapplication.dto;
+
+import java.util.List;
+
+public record HousePageDto(List<HouseResponseDto> houses,
+                           String nextCursor) {
+}
@@ -0,0 +1,19 @@
+package com.zuzex.crudapplication.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Fields left out (null) keep their value, given ones must not be blank; {@code version} is the one
+ * the client read.
+ */
+public record HousePatchDto(@Pattern(regexp = NOT_BLANK, message = "Адрес не должен быть пустым")
+                            @Size(min = 2, max = 50, message = "Адрес должен содержать от 2 до 50 символов")
+                            String address,
+                            @NotNull(message = "Версия не может быть пустой")
+                            Long version) {
+
+    /** Like {@code @NotBlank}, but null passes, as {@code @Pattern} skips it */
+    static final String NOT_BLANK = "(?s).*\\S.*";
+}
@@ -5,5 +5,6 @@ import java.util.List;
 public record HouseResponseDto(Long id,
                                String address,
                                Long ownerId,
-                               List<Long> residentIds) {
+                               List<Long> residentIds,
+                               Long version) {
 }
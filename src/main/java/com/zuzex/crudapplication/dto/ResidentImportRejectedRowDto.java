@@ -0,0 +1,6 @@
+package com.zuzex.crudapplication.dto;
+
+public record ResidentImportRejectedRowDto(long line,
+                                           String value,
+                                           String error) {
+}
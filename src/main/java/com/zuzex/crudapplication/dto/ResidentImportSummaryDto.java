@@ -0,0 +1,9 @@
+package com.zuzex.crudapplication.dto;
+
+import java.util.List;
+
+public record ResidentImportSummaryDto(long totalRows,
+                                       long importedRows,
+                                       long rejectedRows,
+                                       List<ResidentImportRejectedRowDto> rejections) {
+}
@@ -0,0 +1,23 @@
+package com.zuzex.crudapplication.dto;
+
+import jakarta.validation.constraints.*;
+
+/**
+ * Fields left out (null) keep their value, given ones must not be blank; {@code version} is the one
+ * the client read.
+ */
+public record UserPatchDto(@Pattern(regexp = NOT_BLANK, message = "Имя не должно быть пустым")
+                           @Size(min = 2, max = 50, message = "Имя должно содержать от 2 до 50 символов")
+                           String name,
+                           @Min(value = 1, message = "Возраст должен быть не менее 1 года")
+                           @Max(value = 100, message = "Возраст должен быть не более 100 лет")
+                           Integer age,
+                           @Pattern(regexp = NOT_BLANK, message = "Пароль не должен быть пустым")
+                           @Size(min = 4, message = "Пароль должен содержать не менее 4 символов")
+                           String password,
+                           @NotNull(message = "Версия не может быть пустой")
+                           Long version) {
+
+    /** Like {@code @NotBlank}, but null passes, as {@code @Pattern} skips it */
+    static final String NOT_BLANK = "(?s).*\\S.*";
+}
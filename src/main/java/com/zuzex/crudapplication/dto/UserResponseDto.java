@@ -6,5 +6,6 @@ public record UserResponseDto(Long id,
                               String name,
                               Integer age,
                               List<Long> ownedHouseIds,
-                              List<Long> residenceIds) {
+                              List<Long> residenceIds,
+                              Long version) {
 }
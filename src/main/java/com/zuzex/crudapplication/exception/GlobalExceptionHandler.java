@@ -1,7 +1,12 @@
 package com.zuzex.crudapplication.exception;
 
 import com.zuzex.crudapplication.security.auth.AuthenticationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -14,9 +19,15 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+    public static final String EXCEPTION_COUNTER = "http.server.handled.exceptions";
+
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler(UserException.class)
     public ResponseEntity<Object> handleUserException(UserException ex) {
+        count(ex, ex.getStatus());
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("message", ex.getMessage());
@@ -25,6 +36,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(HouseException.class)
     public ResponseEntity<Object> handleHouseException(HouseException ex) {
+        count(ex, ex.getStatus());
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("message", ex.getMessage());
@@ -33,6 +45,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<Object> handleAuthenticationException(AuthenticationException ex) {
+        count(ex, ex.getStatus());
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("message", ex.getMessage());
@@ -41,6 +54,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(OwnerException.class)
     public ResponseEntity<Object> handleOwnerException(OwnerException ex) {
+        count(ex, ex.getStatus());
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("message", ex.getMessage());
@@ -49,21 +63,50 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ResidentException.class)
     public ResponseEntity<Object> handleResidentException(ResidentException ex) {
+        count(ex, ex.getStatus());
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", LocalDateTime.now());
         body.put("message", ex.getMessage());
         return new ResponseEntity<>(body, ex.getStatus());
     }
 
+    @ExceptionHandler(ServiceOverloadException.class)
+    public ResponseEntity<Object> handleServiceOverloadException(ServiceOverloadException ex) {
+        count(ex, ex.getStatus());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
 
+    /**
+     * A concurrent request updated the same row between our read and the version-checked write.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        count(ex, HttpStatus.CONFLICT);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", "Данные были изменены другим запросом, повторите попытку");
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleValidationExceptions(MethodArgumentNotValidException ex,
                                                              WebRequest request) {
+        count(ex, HttpStatus.BAD_REQUEST);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(error ->
                 errors.put(error.getField(), error.getDefaultMessage()));
 
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
+
+    private void count(Exception ex, HttpStatusCode status) {
+        meterRegistry.counter(EXCEPTION_COUNTER,
+                "exception", ex.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
+    }
 }
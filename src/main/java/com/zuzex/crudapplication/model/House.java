@@ -1,10 +1,14 @@
 package com.zuzex.crudapplication.model;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "houses")
 @Getter
 @Builder
@@ -13,17 +17,19 @@ import java.util.List;
 @AllArgsConstructor
 public class House {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "houses_seq")
+    @SequenceGenerator(name = "houses_seq", sequenceName = "houses_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "address")
     private String address;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", referencedColumnName = "id")
     private User owner;
 
     @Builder.Default
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany
     @JoinTable(
             name = "house_residents",
@@ -31,4 +37,11 @@ public class House {
             inverseJoinColumns = @JoinColumn(name = "resident_id", referencedColumnName = "id")
     )
     private List<User> residents = new ArrayList<>();
+
+    /**
+     * Also incremented when residents are added or removed, so it versions the whole representation.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
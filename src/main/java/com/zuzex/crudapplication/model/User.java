@@ -2,6 +2,8 @@ package com.zuzex.crudapplication.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -14,11 +16,14 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "users")
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     @Column(name = "name")
     private String name;
@@ -27,11 +32,19 @@ public class User implements UserDetails {
     @Column(name = "password")
     private String password;
     @Builder.Default
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "owner")
     private List<House> ownedHouses = new ArrayList<>();
     @Builder.Default
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(mappedBy = "residents")
     private List<House> residences = new ArrayList<>();
+    /**
+     * Also incremented when the owned houses or residences change, so it versions the whole representation.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -0,0 +1,72 @@
+package com.zuzex.crudapplication.repository;
+
+import com.zuzex.crudapplication.repository.projection.HouseRow;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking reads of the houses over R2DBC, the counterpart of {@link HouseRepository} for the reactive profile.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class HouseReadRepository {
+    private static final String SELECT_HOUSES = "select id, address, owner_id, version from houses";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<HouseRow> findPageAfter(long afterId, Long ownerId, String addressPattern, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_HOUSES).append(" where id > :afterId");
+        if (ownerId != null) {
+            sql.append(" and owner_id = :ownerId");
+        }
+        if (addressPattern != null) {
+            sql.append(" and lower(address) like :addressPattern escape '\\'");
+        }
+        sql.append(" order by id limit :limit");
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("afterId", afterId)
+                .bind("limit", limit);
+        if (ownerId != null) {
+            spec = spec.bind("ownerId", ownerId);
+        }
+        if (addressPattern != null) {
+            spec = spec.bind("addressPattern", addressPattern);
+        }
+        return spec.map(HouseReadRepository::toHouseRow).all();
+    }
+
+    public Mono<HouseRow> findById(Long id) {
+        return databaseClient.sql(SELECT_HOUSES + " where id = :id")
+                .bind("id", id)
+                .map(HouseReadRepository::toHouseRow)
+                .one();
+    }
+
+    public Mono<Long> findVersionById(Long id) {
+        return databaseClient.sql("select version from houses where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    public Flux<IdPair> findResidentLinks(Collection<Long> houseIds) {
+        return databaseClient.sql("select house_id, resident_id from house_residents where house_id in (:houseIds)")
+                .bind("houseIds", houseIds)
+                .map(row -> new IdPair(row.get("house_id", Long.class), row.get("resident_id", Long.class)))
+                .all();
+    }
+
+    private static HouseRow toHouseRow(Readable row) {
+        return new HouseRow(row.get("id", Long.class), row.get("address", String.class),
+                row.get("owner_id", Long.class), row.get("version", Long.class));
+    }
+}
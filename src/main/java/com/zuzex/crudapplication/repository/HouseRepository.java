@@ -1,10 +1,137 @@
 package com.zuzex.crudapplication.repository;
 
 import com.zuzex.crudapplication.model.House;
+import com.zuzex.crudapplication.repository.projection.HouseAddress;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Repository
 public interface HouseRepository extends JpaRepository<House, Long> {
-    boolean existsByAddress(String name);
+    int EXPORT_FETCH_SIZE = 500;
+    /**
+     * Query space of native statements whose cache entries are evicted by the caller, see EntityCacheEvictor;
+     * it names no entity table, so Hibernate leaves the cache regions alone.
+     */
+    String EVICTED_BY_CALLER = "evicted_by_caller";
+
+    @Query("select count(h) > 0 from House h where lower(h.address) = lower(:address)")
+    boolean existsByAddress(@Param("address") String address);
+
+    boolean existsByIdAndOwnerId(Long id, Long ownerId);
+
+    @Query("select h.version from House h where h.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EVICTED_BY_CALLER))
+    @Query(value = "UPDATE houses SET version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    @Query("select h.address from House h where h.id = :id and h.version = :version")
+    Optional<String> findAddressByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    /**
+     * Updates only a house of this owner that still has the expected version; a null address is kept.
+     * The caller evicts the house from the second-level cache.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = EVICTED_BY_CALLER))
+    @Query(value = """
+            UPDATE houses SET address = COALESCE(CAST(:address AS varchar), address), version = version + 1
+            WHERE id = :id AND version = :version AND owner_id = :ownerId""", nativeQuery = true)
+    int patch(@Param("id") Long id,
+              @Param("version") Long version,
+              @Param("ownerId") Long ownerId,
+              @Param("address") String address);
+
+    /**
+     * Declares the touched table, so Hibernate does not evict every second-level cache region;
+     * the caller evicts the house and resident entries.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "house_residents"))
+    @Query(value = """
+            INSERT INTO house_residents (house_id, resident_id)
+            SELECT h.id, u.id FROM houses h, users u
+            WHERE h.id = :houseId AND h.owner_id = :ownerId AND u.id = :residentId
+            ON CONFLICT DO NOTHING""", nativeQuery = true)
+    int addResident(@Param("houseId") Long houseId,
+                    @Param("residentId") Long residentId,
+                    @Param("ownerId") Long ownerId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "house_residents"))
+    @Query(value = """
+            DELETE FROM house_residents
+            WHERE house_id = :houseId AND resident_id = :residentId
+              AND EXISTS (SELECT 1 FROM houses h WHERE h.id = :houseId AND h.owner_id = :ownerId)""",
+            nativeQuery = true)
+    int removeResident(@Param("houseId") Long houseId,
+                       @Param("residentId") Long residentId,
+                       @Param("ownerId") Long ownerId);
+
+    @Query("select lower(h.address) from House h where lower(h.address) in :normalizedAddresses")
+    Set<String> findExistingAddresses(@Param("normalizedAddresses") Collection<String> normalizedAddresses);
+
+    /**
+     * @param addressPattern a lower case LIKE pattern of the address, matched against lower(address)
+     *                       to use its text_pattern_ops index
+     */
+    @Query("""
+            select h from House h
+            where h.id > :afterId
+              and (:ownerId is null or h.owner.id = :ownerId)
+              and (:addressPattern is null or lower(h.address) like :addressPattern escape '\\')
+            order by h.id""")
+    List<House> findPageAfter(@Param("afterId") Long afterId,
+                              @Param("ownerId") Long ownerId,
+                              @Param("addressPattern") String addressPattern,
+                              Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select h from House h order by h.id")
+    Stream<House> streamAllOrderedById();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.HouseAddress(h.id, h.address)
+            from House h order by h.id""")
+    Stream<HouseAddress> streamAllAddresses();
+
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.IdPair(h.id, r.id)
+            from House h join h.residents r""")
+    List<IdPair> findAllResidentLinks();
+
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.IdPair(h.id, r.id)
+            from House h join h.residents r
+            where h.id in :houseIds""")
+    List<IdPair> findResidentLinks(@Param("houseIds") Collection<Long> houseIds);
+
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.IdPair(h.id, o.id)
+            from House h left join h.owner o
+            where h.id in :houseIds""")
+    List<IdPair> findOwnerLinks(@Param("houseIds") Collection<Long> houseIds);
 }
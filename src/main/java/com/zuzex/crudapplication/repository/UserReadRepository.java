@@ -0,0 +1,75 @@
+package com.zuzex.crudapplication.repository;
+
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import com.zuzex.crudapplication.repository.projection.UserRow;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking reads of the users over R2DBC, the counterpart of {@link UserRepository} for the reactive profile.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class UserReadRepository {
+    private static final String SELECT_USERS = "select id, name, age, version from users";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<UserRow> findPageAfter(long afterId, int limit) {
+        return databaseClient.sql(SELECT_USERS + " where id > :afterId order by id limit :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(UserReadRepository::toUserRow)
+                .all();
+    }
+
+    public Mono<UserRow> findById(Long id) {
+        return databaseClient.sql(SELECT_USERS + " where id = :id")
+                .bind("id", id)
+                .map(UserReadRepository::toUserRow)
+                .one();
+    }
+
+    public Mono<Long> findVersionById(Long id) {
+        return databaseClient.sql("select version from users where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    public Flux<IdPair> findOwnedHouseLinks(Collection<Long> userIds) {
+        return databaseClient.sql("select owner_id, id from houses where owner_id in (:userIds)")
+                .bind("userIds", userIds)
+                .map(row -> new IdPair(row.get("owner_id", Long.class), row.get("id", Long.class)))
+                .all();
+    }
+
+    public Flux<IdPair> findResidenceLinks(Collection<Long> userIds) {
+        return databaseClient.sql("select resident_id, house_id from house_residents where resident_id in (:userIds)")
+                .bind("userIds", userIds)
+                .map(row -> new IdPair(row.get("resident_id", Long.class), row.get("house_id", Long.class)))
+                .all();
+    }
+
+    public Mono<AuthenticatedUser> findPrincipalByName(String name) {
+        return databaseClient.sql("select id, name, password from users where name = :name")
+                .bind("name", name)
+                .map(row -> new AuthenticatedUser(row.get("id", Long.class), row.get("name", String.class),
+                        row.get("password", String.class)))
+                .one();
+    }
+
+    private static UserRow toUserRow(Readable row) {
+        return new UserRow(row.get("id", Long.class), row.get("name", String.class),
+                row.get("age", Integer.class), row.get("version", Long.class));
+    }
+}
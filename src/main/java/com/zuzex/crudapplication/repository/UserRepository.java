@@ -1,12 +1,90 @@
 package com.zuzex.crudapplication.repository;
 
 import com.zuzex.crudapplication.model.User;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    int EXPORT_FETCH_SIZE = 500;
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByName(String name);
 
     boolean existsByName(String name);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HouseRepository.EVICTED_BY_CALLER))
+    @Query(value = "UPDATE users SET version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Updates only a user that still has the expected version; null fields are kept.
+     * The caller evicts the user from the second-level cache.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = HouseRepository.EVICTED_BY_CALLER))
+    @Query(value = """
+            UPDATE users SET name = COALESCE(CAST(:name AS varchar), name),
+                age = COALESCE(CAST(:age AS integer), age),
+                password = COALESCE(CAST(:password AS varchar), password),
+                version = version + 1
+            WHERE id = :id AND version = :version""", nativeQuery = true)
+    int patch(@Param("id") Long id,
+              @Param("version") Long version,
+              @Param("name") String name,
+              @Param("age") Integer age,
+              @Param("password") String password);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.name = :name")
+    int updatePassword(@Param("name") String name, @Param("password") String password);
+
+    @Query("select u.id from User u where u.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.IdPair(u.id, h.id)
+            from User u join u.ownedHouses h""")
+    List<IdPair> findAllOwnedHouseLinks();
+
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.IdPair(u.id, h.id)
+            from User u join u.residences h""")
+    List<IdPair> findAllResidenceLinks();
+
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.IdPair(u.id, h.id)
+            from User u join u.ownedHouses h
+            where u.id in :userIds""")
+    List<IdPair> findOwnedHouseLinks(@Param("userIds") Collection<Long> userIds);
+
+    @Query("""
+            select new com.zuzex.crudapplication.repository.projection.IdPair(u.id, h.id)
+            from User u join u.residences h
+            where u.id in :userIds""")
+    List<IdPair> findResidenceLinks(@Param("userIds") Collection<Long> userIds);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderedById();
 }
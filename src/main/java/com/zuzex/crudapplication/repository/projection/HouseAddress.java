@@ -0,0 +1,5 @@
+package com.zuzex.crudapplication.repository.projection;
+
+public record HouseAddress(Long id,
+                           String address) {
+}
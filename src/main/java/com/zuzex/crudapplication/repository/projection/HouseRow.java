@@ -0,0 +1,7 @@
+package com.zuzex.crudapplication.repository.projection;
+
+public record HouseRow(Long id,
+                       String address,
+                       Long ownerId,
+                       Long version) {
+}
@@ -0,0 +1,19 @@
+package com.zuzex.crudapplication.repository.projection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record IdPair(Long id,
+                     Long linkedId) {
+
+    public static Map<Long, List<Long>> groupLinkedIds(Collection<IdPair> pairs) {
+        Map<Long, List<Long>> linkedIds = new HashMap<>();
+        for (IdPair pair : pairs) {
+            linkedIds.computeIfAbsent(pair.id(), id -> new ArrayList<>()).add(pair.linkedId());
+        }
+        return linkedIds;
+    }
+}
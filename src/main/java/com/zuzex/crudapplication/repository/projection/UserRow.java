@@ -0,0 +1,7 @@
+package com.zuzex.crudapplication.repository.projection;
+
+public record UserRow(Long id,
+                      String name,
+                      Integer age,
+                      Long version) {
+}
@@ -1,10 +1,14 @@
 package com.zuzex.crudapplication.security.auth;
 
+import com.zuzex.crudapplication.config.MetricsConfig;
 import com.zuzex.crudapplication.dto.UserRequestDto;
 import com.zuzex.crudapplication.model.User;
 import com.zuzex.crudapplication.repository.UserRepository;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
 import com.zuzex.crudapplication.security.config.JwtService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -12,6 +16,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
+@Profile("!reactive")
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @RequiredArgsConstructor
 public class AuthenticationService {
     private final UserRepository userRepository;
@@ -30,21 +36,20 @@ public class AuthenticationService {
                 .password(passwordEncoder.encode(registrationUser.password()))
                 .build();
         userRepository.save(user);
-        var jwtToken = jwtService.generateToken(user);
+        var jwtToken = jwtService.generateToken(AuthenticatedUser.from(user));
         return AuthenticationResponse.builder()
                 .token(jwtToken)
                 .build();
     }
 
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
-        authenticationManager.authenticate(
+        var authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getName(),
                         request.getPassword()
                 )
         );
-        var user = userRepository.findByName(request.getName())
-                .orElseThrow();
+        var user = (AuthenticatedUser) authentication.getPrincipal();
         var jwtToken = jwtService.generateToken(user);
         return AuthenticationResponse.builder()
                 .token(jwtToken)
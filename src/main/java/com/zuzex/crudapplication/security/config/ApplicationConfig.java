@@ -1,27 +1,71 @@
 package com.zuzex.crudapplication.security.config;
 
+import com.zuzex.crudapplication.config.ReplicaRouter;
+import com.zuzex.crudapplication.model.User;
 import com.zuzex.crudapplication.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Optional;
+
 @Configuration
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class ApplicationConfig {
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<ReplicaRouter> replicaRouter;
+
+    @Value("${application.security.bcrypt.strength}")
+    private int bcryptStrength;
+    @Value("${application.security.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int passwordHashingThreads;
+    @Value("${application.security.password-hashing.queue-capacity}")
+    private int passwordHashingQueueCapacity;
+    @Value("${application.security.password-hashing.retry-after-seconds}")
+    private long passwordHashingRetryAfterSeconds;
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByName(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь на найден"));
+        return username -> principalCache.get(username, name -> findByName(name)
+                .map(AuthenticatedUser::from)
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь на найден")));
+    }
+
+    /**
+     * A user registered a moment ago may not have reached the replicas yet, so a miss is retried on the primary.
+     */
+    private Optional<User> findByName(String name) {
+        Optional<User> user = userRepository.findByName(name);
+        ReplicaRouter router = replicaRouter.getIfAvailable();
+        if (user.isEmpty() && router != null) {
+            user = router.onPrimary(() -> userRepository.findByName(name));
+        }
+        return user;
+    }
+
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (user, newPassword) -> {
+            userRepository.updatePassword(user.getUsername(), newPassword);
+            principalCache.evict(user.getUsername());
+            return new AuthenticatedUser(((AuthenticatedUser) user).id(), user.getUsername(), newPassword);
+        };
     }
 
     @Bean
@@ -29,6 +73,7 @@ public class ApplicationConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authProvider;
     }
 
@@ -39,6 +84,8 @@ public class ApplicationConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                passwordHashingThreads, passwordHashingQueueCapacity, passwordHashingRetryAfterSeconds,
+                meterRegistry);
     }
 }
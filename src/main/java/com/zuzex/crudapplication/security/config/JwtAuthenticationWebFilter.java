@@ -0,0 +1,61 @@
+package com.zuzex.crudapplication.security.config;
+
+import com.zuzex.crudapplication.repository.UserReadRepository;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * The {@link JwtAuthenticationFilter} of the reactive profile: the same token verification and
+ * principal cache, with the principal of a cache miss loaded over R2DBC. Requests with a token that
+ * does not verify go on unauthenticated and are rejected by the authorization rules.
+ * Not a bean, so that it only runs inside the security filter chain.
+ */
+@RequiredArgsConstructor
+public class JwtAuthenticationWebFilter implements WebFilter {
+    private final JwtService jwtService;
+    private final PrincipalCache principalCache;
+    private final UserReadRepository userReadRepository;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+        final VerifiedToken token;
+        try {
+            token = jwtService.verifyToken(authHeader.substring(7));
+        } catch (JwtException e) {
+            return chain.filter(exchange);
+        }
+        if (token.username() == null) {
+            return chain.filter(exchange);
+        }
+        return loadPrincipal(token.username())
+                .filter(principal -> jwtService.isTokenValid(token, principal))
+                .map(principal -> ReactiveSecurityContextHolder.withAuthentication(
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())))
+                .defaultIfEmpty(Context.empty())
+                .flatMap(context -> chain.filter(exchange).contextWrite(context));
+    }
+
+    private Mono<AuthenticatedUser> loadPrincipal(String username) {
+        AuthenticatedUser principal = principalCache.find(username);
+        if (principal != null) {
+            return Mono.just(principal);
+        }
+        return Mono.defer(() -> {
+            long loadGeneration = principalCache.generation();
+            return userReadRepository.findPrincipalByName(username)
+                    .doOnNext(loaded -> principalCache.put(loaded, loadGeneration));
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.zuzex.crudapplication.security.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Component
+public class PrincipalCache {
+    private final Cache<String, AuthenticatedUser> principals;
+    /** Bumped by every eviction; a principal loaded across a bump may be stale and is not cached */
+    private final AtomicLong generation = new AtomicLong();
+
+    public PrincipalCache(@Value("${application.security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${application.security.principal-cache.ttl:5m}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+    }
+
+    /**
+     * The loader runs outside of the cache's compute lock: it performs JDBC I/O, and blocking
+     * inside a monitor would pin the carrier thread when requests run on virtual threads.
+     */
+    public AuthenticatedUser get(String username, Function<String, AuthenticatedUser> loader) {
+        AuthenticatedUser principal = find(username);
+        if (principal == null) {
+            long loadGeneration = generation();
+            principal = loader.apply(username);
+            put(principal, loadGeneration);
+        }
+        return principal;
+    }
+
+    /**
+     * The cached principal or {@code null}; lets non-blocking callers load a miss on their own.
+     */
+    public AuthenticatedUser find(String username) {
+        return principals.getIfPresent(username);
+    }
+
+    /**
+     * To be read before loading a principal and handed to {@link #put(AuthenticatedUser, long)}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a principal loaded after {@link #generation()} returned {@code loadGeneration}, unless an
+     * eviction ran since: the load may then have read the user before a rename or delete committed.
+     * The check runs under the entry's lock, which the invalidation takes as well.
+     */
+    public void put(AuthenticatedUser principal, long loadGeneration) {
+        principals.asMap().compute(principal.username(),
+                (username, cached) -> generation.get() == loadGeneration ? principal : cached);
+    }
+
+    /**
+     * Evicts the principal now and, inside a transaction, once more after commit so that
+     * a concurrent request cannot re-cache the state that is being replaced.
+     */
+    public void evict(String username) {
+        evictNowAndAfterCompletion(() -> principals.invalidate(username));
+    }
+
+    /**
+     * Same as {@link #evict(String)} for writes that do not read the user's name; scans the cache.
+     */
+    public void evictById(Long id) {
+        evictNowAndAfterCompletion(() -> principals.asMap().values().removeIf(principal -> id.equals(principal.id())));
+    }
+
+    private void evictNowAndAfterCompletion(Runnable evict) {
+        Runnable bumpAndEvict = () -> {
+            generation.incrementAndGet();
+            evict.run();
+        };
+        bumpAndEvict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bumpAndEvict.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.zuzex.crudapplication.security.config;
+
+import com.zuzex.crudapplication.repository.UserReadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * Security of the reactive profile. It only serves reads, so tokens are issued by the servlet instances.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+@RequiredArgsConstructor
+public class ReactiveSecurityConfiguration {
+    private final JwtService jwtService;
+    private final PrincipalCache principalCache;
+    private final UserReadRepository userReadRepository;
+    private static final String[] WHITE_LIST_URL = {
+            "/actuator/prometheus",
+    };
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers(WHITE_LIST_URL)
+                        .permitAll()
+                        .anyExchange()
+                        .authenticated())
+                // Same status as the servlet chain answers without credentials
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .addFilterAt(new JwtAuthenticationWebFilter(jwtService, principalCache, userReadRepository),
+                        SecurityWebFiltersOrder.AUTHENTICATION);
+        return http.build();
+    }
+}
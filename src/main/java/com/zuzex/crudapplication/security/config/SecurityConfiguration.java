@@ -1,8 +1,17 @@
 package com.zuzex.crudapplication.security.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zuzex.crudapplication.config.ConcurrencyLimitFilter;
+import com.zuzex.crudapplication.config.ConcurrencyLimitProperties;
+import com.zuzex.crudapplication.config.RateLimitFilter;
+import com.zuzex.crudapplication.config.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -13,15 +22,22 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
+@EnableConfigurationProperties({ConcurrencyLimitProperties.class, RateLimitProperties.class})
 @RequiredArgsConstructor
 public class SecurityConfiguration {
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final AuthenticationProvider authenticationProvider;
+    private final ConcurrencyLimitProperties concurrencyLimitProperties;
+    private final RateLimitProperties rateLimitProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
     private static final String[] WHITE_LIST_URL = {
             "/api/v1/auth/**",
             "/api/openapi/**",
             "/swagger-ui.html",
+            "/actuator/prometheus",
 };
 
     @Bean
@@ -29,7 +45,10 @@ public class SecurityConfiguration {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req ->
-                        req.requestMatchers(WHITE_LIST_URL)
+                        // Async dispatches complete streamed exports; the request was authorized on the first dispatch
+                        req.dispatcherTypeMatchers(DispatcherType.ASYNC)
+                                .permitAll()
+                                .requestMatchers(WHITE_LIST_URL)
                                 .permitAll()
                                 .anyRequest()
                                 .authenticated()
@@ -38,6 +57,16 @@ public class SecurityConfiguration {
                 .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
         ;
+        if (concurrencyLimitProperties.enabled()) {
+            // Shed requests before the principal lookup, which already needs a connection
+            http.addFilterBefore(new ConcurrencyLimitFilter(concurrencyLimitProperties, objectMapper, meterRegistry),
+                    JwtAuthenticationFilter.class);
+        }
+        if (rateLimitProperties.enabled()) {
+            // After the JWT filter, so the API budget is kept per user rather than per address
+            http.addFilterAfter(new RateLimitFilter(rateLimitProperties, objectMapper, meterRegistry),
+                    JwtAuthenticationFilter.class);
+        }
         return http.build();
     }
 }
@@ -0,0 +1,8 @@
+package com.zuzex.crudapplication.security.config;
+
+import java.time.Instant;
+
+public record VerifiedToken(String username,
+                            Long userId,
+                            Instant expiresAt) {
+}
@@ -0,0 +1,296 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.repository.HouseRepository;
+import com.zuzex.crudapplication.repository.projection.HouseAddress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted trigram index over house addresses. Each trigram maps to a sorted
+ * {@code long[]} of house ids; a search ranks houses by the number of query trigrams they contain.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class AddressSearchIndex {
+
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    /**
+     * Share of the query trigrams a house must contain to be returned.
+     */
+    private static final double MIN_MATCH_RATIO = 0.5;
+
+    private final HouseRepository houseRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, PostingList> postings = new HashMap<>();
+    /** Changes committed while a build runs, replayed on the built postings; null when no build runs */
+    private List<Consumer<Map<Long, PostingList>>> pendingChanges;
+
+    /**
+     * Scans the houses into new postings without the lock, so searches keep being answered from the
+     * current postings and changes are not held up. Changes committed meanwhile are applied to the
+     * current postings and queued; the queue is replayed on the new postings as they are swapped in.
+     * Replaying a change the scan has already seen leaves the postings as they are.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        List<Consumer<Map<Long, PostingList>>> changes = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, PostingList> built = new HashMap<>();
+        try (Stream<HouseAddress> addresses = houseRepository.streamAllAddresses()) {
+            for (HouseAddress house : (Iterable<HouseAddress>) addresses::iterator) {
+                add(built, house.id(), house.address());
+            }
+            built.values().forEach(PostingList::trim);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            changes.forEach(change -> change.accept(built));
+            postings = built;
+            pendingChanges = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAfterCommit(long id, String address) {
+        afterCommit(() -> apply(target -> add(target, id, address)));
+    }
+
+    public void replaceAfterCommit(long id, String oldAddress, String newAddress) {
+        afterCommit(() -> apply(target -> {
+            remove(target, id, oldAddress);
+            add(target, id, newAddress);
+        }));
+    }
+
+    public void removeAfterCommit(long id, String address) {
+        afterCommit(() -> apply(target -> remove(target, id, address)));
+    }
+
+    /**
+     * Returns up to {@code limit} house ids, best match first; ties are broken by the lower id.
+     * Score levels are visited from the highest down and the posting lists are walked in id order,
+     * so the scan stops as soon as {@code limit} houses are found.
+     */
+    public long[] search(String query, int limit) {
+        long[] trigrams = trigrams(query);
+        if (trigrams.length == 0 || limit < 1) {
+            return new long[0];
+        }
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[trigrams.length];
+            for (int i = 0; i < trigrams.length; i++) {
+                lists[i] = postings.getOrDefault(trigrams[i], PostingList.EMPTY);
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int minScore = Math.max(1, (int) Math.ceil(trigrams.length * MIN_MATCH_RATIO));
+            long[] found = new long[limit];
+            int foundCount = 0;
+            for (int score = lists.length; score >= minScore && foundCount < limit; score--) {
+                foundCount = collectScore(lists, score, found, foundCount);
+            }
+            return Arrays.copyOf(found, foundCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends houses matching exactly {@code score} lists. Such a house is missing from at most
+     * {@code lists.length - score} lists, so it is present in one of the shortest
+     * {@code lists.length - score + 1}: only those are merged, the rest are probed by binary search.
+     */
+    private static int collectScore(PostingList[] lists, int score, long[] found, int foundCount) {
+        int mergedLists = lists.length - score + 1;
+        // Candidates come in ascending id order, so every list is only ever searched forward.
+        int[] cursors = new int[lists.length];
+        while (foundCount < found.length) {
+            long id = Long.MAX_VALUE;
+            for (int i = 0; i < mergedLists; i++) {
+                if (cursors[i] < lists[i].size && lists[i].ids[cursors[i]] < id) {
+                    id = lists[i].ids[cursors[i]];
+                }
+            }
+            if (id == Long.MAX_VALUE) {
+                break;
+            }
+            int matches = 0;
+            for (int i = 0; i < mergedLists; i++) {
+                if (cursors[i] < lists[i].size && lists[i].ids[cursors[i]] == id) {
+                    matches++;
+                    cursors[i]++;
+                }
+            }
+            for (int j = mergedLists; j < lists.length && matches <= score
+                    && matches + lists.length - j >= score; j++) {
+                cursors[j] = lists[j].seek(cursors[j], id);
+                if (cursors[j] < lists[j].size && lists[j].ids[cursors[j]] == id) {
+                    matches++;
+                }
+            }
+            if (matches == score) {
+                found[foundCount++] = id;
+            }
+        }
+        return foundCount;
+    }
+
+    private void apply(Consumer<Map<Long, PostingList>> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(postings);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(Map<Long, PostingList> postings, long id, String address) {
+        for (long trigram : trigrams(address)) {
+            postings.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+        }
+    }
+
+    private static void remove(Map<Long, PostingList> postings, long id, String address) {
+        for (long trigram : trigrams(address)) {
+            PostingList list = postings.get(trigram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Distinct trigrams of the lower-cased text, each packed into a long as three UTF-16 chars.
+     */
+    static long[] trigrams(String text) {
+        String normalized = text == null ? "" : text.toLowerCase(Locale.ROOT);
+        if (normalized.length() < MIN_QUERY_LENGTH) {
+            return new long[0];
+        }
+        long[] trigrams = new long[normalized.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) normalized.charAt(i) << 32)
+                    | ((long) normalized.charAt(i + 1) << 16)
+                    | normalized.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static final class PostingList {
+        private static final PostingList EMPTY = new PostingList();
+
+        private long[] ids = new long[4];
+        private int size;
+
+        /**
+         * Galloping search for the first position at or after {@code from} holding an id {@code >= id}.
+         */
+        private int seek(int from, long id) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(ids, low, Math.min(high + 1, size), id);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        private void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                insertAt(-position - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        private void insertAt(int position, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        private boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void trim() {
+            if (ids.length > size) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+}
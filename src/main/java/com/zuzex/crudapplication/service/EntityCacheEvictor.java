@@ -0,0 +1,83 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.model.House;
+import com.zuzex.crudapplication.model.User;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Evicts the second-level cache entries of rows written past Hibernate (native queries, JDBC batches).
+ * Hibernate would evict whole regions for a statement on an entity table, so these statements declare
+ * a query space of no entity and the touched entries are evicted here one by one instead.
+ * <p>
+ * Evicts now and, inside a transaction, once more after completion, in case a concurrent read
+ * re-cached the entries before the commit.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class EntityCacheEvictor {
+    private static final String HOUSE_RESIDENTS = House.class.getName() + ".residents";
+    private static final String USER_RESIDENCES = User.class.getName() + ".residences";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evictHouses(Collection<Long> houseIds) {
+        evictNowAndAfterCompletion(cache -> houseIds.forEach(id -> cache.evictEntityData(House.class, id)));
+    }
+
+    public void evictUsers(Collection<Long> userIds) {
+        evictNowAndAfterCompletion(cache -> userIds.forEach(id -> cache.evictEntityData(User.class, id)));
+    }
+
+    /**
+     * Cached query results hold the ids of the rows that matched, so they go when a queried column changes.
+     */
+    public void evictQueries() {
+        evictNowAndAfterCompletion(Cache::evictDefaultQueryRegion);
+    }
+
+    public void evictResidentLink(Long houseId, Long residentId) {
+        evictResidentLinks(List.of(new IdPair(houseId, residentId)));
+    }
+
+    /**
+     * Evicts both sides of the links, with their resident collections.
+     *
+     * @param links house id to resident id
+     */
+    public void evictResidentLinks(Collection<IdPair> links) {
+        evictNowAndAfterCompletion(cache -> {
+            for (IdPair link : links) {
+                cache.evictEntityData(House.class, link.id());
+                cache.evictCollectionData(HOUSE_RESIDENTS, link.id());
+                cache.evictEntityData(User.class, link.linkedId());
+                cache.evictCollectionData(USER_RESIDENCES, link.linkedId());
+            }
+        });
+    }
+
+    private void evictNowAndAfterCompletion(Consumer<Cache> evict) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        evict.accept(cache);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.accept(cache);
+                }
+            });
+        }
+    }
+}
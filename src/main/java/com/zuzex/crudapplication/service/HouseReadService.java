@@ -0,0 +1,83 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.dto.HousePageDto;
+import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.exception.HouseException;
+import com.zuzex.crudapplication.repository.HouseReadRepository;
+import com.zuzex.crudapplication.repository.projection.HouseRow;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The read side of {@link HouseService} for the reactive profile: same pages, cursors and DTOs,
+ * answered over R2DBC without holding a thread per request.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class HouseReadService {
+    private final HouseReadRepository houseReadRepository;
+
+    /**
+     * Pages are bounded by {@link HouseService#MAX_PAGE_SIZE} and collected, since the next cursor
+     * goes into the headers ahead of the body.
+     */
+    public Mono<HousePageDto> findHousesPage(String cursor, int limit, Long ownerId, String addressPrefix) {
+        if (limit < 1 || limit > HouseService.MAX_PAGE_SIZE) {
+            return Mono.error(new HouseException("Размер страницы должен быть от 1 до " + HouseService.MAX_PAGE_SIZE,
+                    HttpStatus.BAD_REQUEST));
+        }
+        String addressPattern = HouseService.addressPattern(addressPrefix);
+        return Mono.fromCallable(() -> HouseService.decodeCursor(cursor))
+                .flatMapMany(afterId -> houseReadRepository.findPageAfter(afterId, ownerId, addressPattern, limit + 1))
+                .collectList()
+                .flatMap(houses -> {
+                    if (houses.isEmpty()) {
+                        return Mono.just(new HousePageDto(Collections.emptyList(), null));
+                    }
+                    List<HouseRow> page = houses.size() > limit ? houses.subList(0, limit) : houses;
+                    String nextCursor = houses.size() > limit ? HouseService.encodeCursor(page.get(limit - 1).id()) : null;
+                    return withResidents(page).collectList()
+                            .map(dtos -> new HousePageDto(dtos, nextCursor));
+                });
+    }
+
+    public Mono<HouseResponseDto> findHouseById(Long id) {
+        return houseReadRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new HouseException("Не найден дом с id: " + id, HttpStatus.NOT_FOUND)))
+                .flatMap(house -> withResidents(List.of(house)).single());
+    }
+
+    /**
+     * The version of the house without loading it, for answering conditional requests.
+     */
+    public Mono<Long> findHouseVersion(Long id) {
+        return houseReadRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new HouseException("Не найден дом с id: " + id, HttpStatus.NOT_FOUND)));
+    }
+
+    private Flux<HouseResponseDto> withResidents(List<HouseRow> houses) {
+        List<Long> houseIds = houses.stream()
+                .map(HouseRow::id)
+                .toList();
+        return houseReadRepository.findResidentLinks(houseIds)
+                .collectList()
+                .flatMapIterable(links -> {
+                    Map<Long, List<Long>> residentIdsByHouse = IdPair.groupLinkedIds(links);
+                    return houses.stream()
+                            .map(house -> new HouseResponseDto(house.id(), house.address(), house.ownerId(),
+                                    residentIdsByHouse.getOrDefault(house.id(), Collections.emptyList()),
+                                    house.version()))
+                            .toList();
+                });
+    }
+}
@@ -1,88 +1,292 @@
 package com.zuzex.crudapplication.service;
 
+import com.zuzex.crudapplication.config.MetricsConfig;
+import com.zuzex.crudapplication.dto.HouseBatchItemResultDto;
+import com.zuzex.crudapplication.dto.HousePageDto;
+import com.zuzex.crudapplication.dto.HousePatchDto;
 import com.zuzex.crudapplication.dto.HouseRequestDto;
 import com.zuzex.crudapplication.dto.HouseResponseDto;
 import com.zuzex.crudapplication.exception.HouseException;
 import com.zuzex.crudapplication.exception.OwnerException;
 import com.zuzex.crudapplication.exception.ResidentException;
-import com.zuzex.crudapplication.exception.UserException;
 import com.zuzex.crudapplication.model.House;
 import com.zuzex.crudapplication.model.User;
 import com.zuzex.crudapplication.repository.HouseRepository;
 import com.zuzex.crudapplication.repository.UserRepository;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @RequiredArgsConstructor
 public class HouseService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final HouseRepository houseRepository;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final AddressSearchIndex addressSearchIndex;
+    private final EntityCacheEvictor entityCacheEvictor;
     @Transactional(readOnly = true)
     public List<HouseResponseDto> findAllHouses() {
         List<House> houseList =  houseRepository.findAll();
         if (houseList.isEmpty()) {
             return Collections.emptyList();
         }
-        return houseList.stream()
-                .map(HouseService::mapHouseEntityToResponseDto)
+        return mapHouseEntitiesToResponseDtos(houseList, houseRepository.findAllResidentLinks());
+    }
+    @Transactional(readOnly = true)
+    public HousePageDto findHousesPage(String cursor, int limit, Long ownerId, String addressPrefix) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new HouseException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        List<House> houses = houseRepository.findPageAfter(decodeCursor(cursor), ownerId, addressPattern(addressPrefix),
+                Limit.of(limit + 1));
+        String nextCursor = null;
+        if (houses.size() > limit) {
+            houses = houses.subList(0, limit);
+            nextCursor = encodeCursor(houses.get(limit - 1).getId());
+        }
+        if (houses.isEmpty()) {
+            return new HousePageDto(Collections.emptyList(), null);
+        }
+        List<Long> houseIds = houses.stream()
+                .map(House::getId)
                 .collect(Collectors.toList());
+        List<HouseResponseDto> page = mapHouseEntitiesToResponseDtos(houses,
+                houseRepository.findResidentLinks(houseIds));
+        return new HousePageDto(page, nextCursor);
+    }
+    @Transactional(readOnly = true)
+    public void exportHouses(Consumer<List<HouseResponseDto>> chunkConsumer) {
+        List<House> chunk = new ArrayList<>(HouseRepository.EXPORT_FETCH_SIZE);
+        try (Stream<House> houses = houseRepository.streamAllOrderedById()) {
+            houses.forEachOrdered(house -> {
+                chunk.add(house);
+                if (chunk.size() == HouseRepository.EXPORT_FETCH_SIZE) {
+                    exportChunk(chunk, chunkConsumer);
+                }
+            });
+        }
+        if (!chunk.isEmpty()) {
+            exportChunk(chunk, chunkConsumer);
+        }
     }
+    @Transactional(readOnly = true)
+    public List<HouseResponseDto> searchHouses(String query, int limit) {
+        if (query == null || query.strip().length() < AddressSearchIndex.MIN_QUERY_LENGTH) {
+            throw new HouseException("Строка поиска должна содержать не менее "
+                    + AddressSearchIndex.MIN_QUERY_LENGTH + " символов", HttpStatus.BAD_REQUEST);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new HouseException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        long[] rankedIds = addressSearchIndex.search(query.strip(), limit);
+        if (rankedIds.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Long> houseIds = Arrays.stream(rankedIds).boxed().collect(Collectors.toList());
+        Map<Long, House> housesById = houseRepository.findAllById(houseIds).stream()
+                .collect(Collectors.toMap(House::getId, house -> house));
+        List<House> houses = houseIds.stream()
+                .map(housesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return mapHouseEntitiesToResponseDtos(houses, houseRepository.findResidentLinks(houseIds));
+    }
+
     @Transactional(readOnly = true)
     public HouseResponseDto findHouseById(Long id) {
         return houseRepository.findById(id)
                 .map(HouseService::mapHouseEntityToResponseDto)
                 .orElseThrow(() -> new HouseException("Не найден дом с id: " + id, HttpStatus.NOT_FOUND));
     }
+
+    /**
+     * The version of the house without loading it, for answering conditional requests.
+     */
+    @Transactional(readOnly = true)
+    public Long findHouseVersion(Long id) {
+        return houseRepository.findVersionById(id)
+                .orElseThrow(() -> new HouseException("Не найден дом с id: " + id, HttpStatus.NOT_FOUND));
+    }
+
     @Transactional
-    public HouseResponseDto createHouse(HouseRequestDto houseRequestDto) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String name = authentication.getName();
-        User owner = userRepository.findByName(name)
-                .orElseThrow(() -> new UserException("Пользователь не найден: " + name, HttpStatus.NOT_FOUND));
+    public HouseResponseDto createHouse(HouseRequestDto houseRequestDto, Long ownerId) {
         if (houseRepository.existsByAddress(houseRequestDto.address())) {
             throw new HouseException("Дом с таким адресом " + houseRequestDto.address() + " уже зарегестрирован",
                     HttpStatus.BAD_REQUEST);
         }
         House house = House.builder()
                 .address(houseRequestDto.address())
-                .owner(owner)
+                .owner(userRepository.getReferenceById(ownerId))
                 .build();
-        House savedHouse = houseRepository.save(house);
+        House savedHouse;
+        try {
+            savedHouse = houseRepository.save(house);
+            houseRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new HouseException("Дом с таким адресом " + houseRequestDto.address() + " уже зарегестрирован",
+                    HttpStatus.BAD_REQUEST);
+        }
+        incrementOwnerVersion(ownerId);
+        addressSearchIndex.addAfterCommit(savedHouse.getId(), savedHouse.getAddress());
         return mapHouseEntityToResponseDto(savedHouse);
     }
 
     @Transactional
-    public HouseResponseDto updateHouse(Long id, HouseRequestDto houseRequestDto, String ownerUsername) {
+    public List<HouseBatchItemResultDto> createHouses(List<HouseRequestDto> houseRequestDtos, Long ownerId) {
+        if (houseRequestDtos.isEmpty() || houseRequestDtos.size() > MAX_BATCH_SIZE) {
+            throw new HouseException("Количество домов в пакете должно быть от 1 до " + MAX_BATCH_SIZE,
+                    HttpStatus.BAD_REQUEST);
+        }
+        Set<String> existingAddresses = houseRepository.findExistingAddresses(houseRequestDtos.stream()
+                .filter(Objects::nonNull)
+                .map(HouseRequestDto::address)
+                .filter(Objects::nonNull)
+                .map(HouseService::normalizeAddress)
+                .collect(Collectors.toSet()));
+        User owner = userRepository.getReferenceById(ownerId);
+        Set<String> batchAddresses = new HashSet<>();
+        HouseBatchItemResultDto[] results = new HouseBatchItemResultDto[houseRequestDtos.size()];
+        List<House> houses = new ArrayList<>();
+        List<Integer> houseIndexes = new ArrayList<>();
+        for (int i = 0; i < houseRequestDtos.size(); i++) {
+            HouseRequestDto houseRequestDto = houseRequestDtos.get(i);
+            if (houseRequestDto == null) {
+                results[i] = new HouseBatchItemResultDto(i, null, null, "Дом не задан");
+                continue;
+            }
+            String error = validateBatchItem(houseRequestDto, existingAddresses, batchAddresses);
+            if (error != null) {
+                results[i] = new HouseBatchItemResultDto(i, houseRequestDto.address(), null, error);
+                continue;
+            }
+            houses.add(House.builder()
+                    .address(houseRequestDto.address())
+                    .owner(owner)
+                    .build());
+            houseIndexes.add(i);
+        }
+        List<House> savedHouses;
+        try {
+            savedHouses = houseRepository.saveAll(houses);
+            houseRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // An address was registered by a concurrent request after the check. The insert fails the whole
+            // transaction, so the batch is rejected; on a retry the address gets its per-item error.
+            throw new HouseException("Адрес из пакета был зарегестрирован другим запросом, повторите пакет",
+                    HttpStatus.CONFLICT);
+        }
+        if (!savedHouses.isEmpty()) {
+            incrementOwnerVersion(ownerId);
+        }
+        for (int i = 0; i < savedHouses.size(); i++) {
+            House savedHouse = savedHouses.get(i);
+            int index = houseIndexes.get(i);
+            addressSearchIndex.addAfterCommit(savedHouse.getId(), savedHouse.getAddress());
+            results[index] = new HouseBatchItemResultDto(index, savedHouse.getAddress(), savedHouse.getId(), null);
+        }
+        return List.of(results);
+    }
+
+    /**
+     * @param expectedVersion the version the client read, or {@code null} to update unconditionally
+     */
+    @Transactional
+    public HouseResponseDto updateHouse(Long id, HouseRequestDto houseRequestDto, Long requesterId,
+                                        Long expectedVersion) {
         House house = houseRepository.findById(id)
                 .orElseThrow(() -> new HouseException("Не найден дом с id: " + id, HttpStatus.NOT_FOUND));
-        User requester = userRepository.findByName(ownerUsername)
-                .orElseThrow(() -> new UserException("Пользователь не найден: " + ownerUsername, HttpStatus.NOT_FOUND));
-        if (!house.getOwner().equals(requester)) {
+        if (!isOwner(house, requesterId)) {
             throw new OwnerException("Только владец дома может его редактировать", HttpStatus.FORBIDDEN);
         }
+        if (expectedVersion != null && !expectedVersion.equals(house.getVersion())) {
+            throw new HouseException("Дом был изменен после получения, запросите его заново",
+                    HttpStatus.PRECONDITION_FAILED);
+        }
+        if (houseRequestDto.address() != null && house.getAddress() != null
+                && !normalizeAddress(houseRequestDto.address()).equals(normalizeAddress(house.getAddress()))
+                && houseRepository.existsByAddress(houseRequestDto.address())) {
+            throw new HouseException("Дом с таким адресом " + houseRequestDto.address() + " уже зарегестрирован",
+                    HttpStatus.BAD_REQUEST);
+        }
+        String oldAddress = house.getAddress();
         house.setAddress(houseRequestDto.address());
-        House updatedHouse = houseRepository.save(house);
+        // Flushed so that the response carries the incremented version
+        House updatedHouse = houseRepository.saveAndFlush(house);
+        addressSearchIndex.replaceAfterCommit(updatedHouse.getId(), oldAddress, updatedHouse.getAddress());
         return mapHouseEntityToResponseDto(updatedHouse);
     }
+    /**
+     * Applies the given fields with one conditional UPDATE, without loading the house. The previous
+     * address is only read when it changes, because the search index has to drop its trigrams.
+     *
+     * @return the new version of the house
+     */
+    @Transactional
+    public Long patchHouse(Long id, HousePatchDto housePatchDto, Long requesterId) {
+        String oldAddress = housePatchDto.address() == null
+                ? null
+                : houseRepository.findAddressByIdAndVersion(id, housePatchDto.version()).orElse(null);
+        int updated;
+        try {
+            updated = houseRepository.patch(id, housePatchDto.version(), requesterId, housePatchDto.address());
+        } catch (DataIntegrityViolationException e) {
+            throw new HouseException("Дом с таким адресом " + housePatchDto.address() + " уже зарегестрирован",
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (updated == 0) {
+            if (!houseRepository.existsById(id)) {
+                throw new HouseException("Не найден дом с id: " + id, HttpStatus.NOT_FOUND);
+            }
+            if (requesterId == null || !houseRepository.existsByIdAndOwnerId(id, requesterId)) {
+                throw new OwnerException("Только владец дома может его редактировать", HttpStatus.FORBIDDEN);
+            }
+            throw new HouseException("Дом был изменен другим запросом, запросите его заново", HttpStatus.CONFLICT);
+        }
+        entityCacheEvictor.evictHouses(List.of(id));
+        if (oldAddress != null) {
+            addressSearchIndex.replaceAfterCommit(id, oldAddress, housePatchDto.address());
+        }
+        return housePatchDto.version() + 1;
+    }
+
     @Transactional
-    public void deleteHouse(Long id, String ownerUsername) {
+    public void deleteHouse(Long id, Long requesterId) {
         House house = houseRepository.findById(id)
                 .orElseThrow(() -> new HouseException("Не найден дом с id: " + id, HttpStatus.NOT_FOUND));
-        User requester = userRepository.findByName(ownerUsername)
-                .orElseThrow(() -> new UserException("Владелец дома не найден: " + ownerUsername, HttpStatus.NOT_FOUND));
-        if (!house.getOwner().equals(requester)) {
+        if (!isOwner(house, requesterId)) {
             throw new OwnerException("Только владец дома может его удалить", HttpStatus.FORBIDDEN);
         }
         if (house.getResidents() != null && !house.getResidents().isEmpty()) {
@@ -90,50 +294,150 @@ public class HouseService {
             userRepository.saveAll(house.getResidents());
         }
         houseRepository.delete(house);
+        List<Long> affectedUserIds = new ArrayList<>();
+        affectedUserIds.add(getOwnerId(house));
+        Optional.ofNullable(house.getResidents())
+                .orElse(Collections.emptyList())
+                .forEach(resident -> affectedUserIds.add(resident.getId()));
+        userRepository.incrementVersions(affectedUserIds);
+        entityCacheEvictor.evictUsers(affectedUserIds);
+        addressSearchIndex.removeAfterCommit(house.getId(), house.getAddress());
     }
 
     @Transactional
-    public void addResidentToHouse(Long houseId, Long residentId, String ownerUsername) {
-        House house = houseRepository.findById(houseId)
-                .orElseThrow(() -> new HouseException("Не найден дом с id: " + houseId, HttpStatus.NOT_FOUND));
-        User resident = userRepository.findById(residentId)
-                .orElseThrow(() -> new ResidentException("Жилец не найден: " + residentId, HttpStatus.NOT_FOUND));
-        if (!house.getOwner().getUsername().equals(ownerUsername)) {
-            throw new HouseException("Только владец дома может добавлсять жильцов", HttpStatus.FORBIDDEN);
-        }
-        if (house.getResidents() == null) {
-            house.setResidents(new ArrayList<>());
-        }
-        if (!house.getResidents().contains(resident)) {
-            house.getResidents().add(resident);
-            houseRepository.save(house);
-        } else {
+    public void addResidentToHouse(Long houseId, Long residentId, Long requesterId) {
+        if (houseRepository.addResident(houseId, residentId, requesterId) == 0) {
+            checkResidentChangeAllowed(houseId, residentId, requesterId,
+                    "Только владец дома может добавлсять жильцов");
             throw new ResidentException("Жилец уже зарегистрирован в этом доме", HttpStatus.BAD_REQUEST);
         }
+        incrementLinkVersions(houseId, residentId);
     }
 
     @Transactional
-    public void removeResidentFromHouse(Long houseId, Long residentId, String ownerUsername) {
-        House house = houseRepository.findById(houseId)
-                .orElseThrow(() -> new HouseException("Не найден дом с id: " + houseId, HttpStatus.NOT_FOUND));
-        User resident = userRepository.findById(residentId)
-                .orElseThrow(() -> new ResidentException("Жилец не найден: " + residentId, HttpStatus.NOT_FOUND));
-        if (!house.getOwner().getUsername().equals(ownerUsername)) {
-            throw new HouseException("Только владец дома может удалять жильцов", HttpStatus.FORBIDDEN);
-        }
-        if (house.getResidents() == null) {
+    public void removeResidentFromHouse(Long houseId, Long residentId, Long requesterId) {
+        if (houseRepository.removeResident(houseId, residentId, requesterId) == 0) {
+            checkResidentChangeAllowed(houseId, residentId, requesterId,
+                    "Только владец дома может удалять жильцов");
             throw new ResidentException("Жилец не зарегистрирован в этом доме", HttpStatus.BAD_REQUEST);
         }
-        if (house.getResidents().contains(resident)) {
-            house.getResidents().remove(resident);
-            houseRepository.save(house);
-        } else {
-            throw new ResidentException("Жилец не зарегистрирован в этом доме", HttpStatus.BAD_REQUEST);
+        incrementLinkVersions(houseId, residentId);
+    }
+
+    /**
+     * The link is written past Hibernate, so neither side's version would change by itself.
+     */
+    private void incrementLinkVersions(Long houseId, Long residentId) {
+        houseRepository.incrementVersions(List.of(houseId));
+        userRepository.incrementVersions(List.of(residentId));
+        entityCacheEvictor.evictResidentLink(houseId, residentId);
+    }
+
+    /**
+     * The owner's house list is the inverse side of the association, so the owner's version would not change.
+     */
+    private void incrementOwnerVersion(Long ownerId) {
+        userRepository.incrementVersions(List.of(ownerId));
+        entityCacheEvictor.evictUsers(List.of(ownerId));
+    }
+
+    private void checkResidentChangeAllowed(Long houseId, Long residentId, Long requesterId, String forbiddenMessage) {
+        if (!houseRepository.existsById(houseId)) {
+            throw new HouseException("Не найден дом с id: " + houseId, HttpStatus.NOT_FOUND);
+        }
+        if (!userRepository.existsById(residentId)) {
+            throw new ResidentException("Жилец не найден: " + residentId, HttpStatus.NOT_FOUND);
+        }
+        if (requesterId == null || !houseRepository.existsByIdAndOwnerId(houseId, requesterId)) {
+            throw new HouseException(forbiddenMessage, HttpStatus.FORBIDDEN);
+        }
+    }
+
+    private String validateBatchItem(HouseRequestDto houseRequestDto,
+                                     Set<String> existingAddresses,
+                                     Set<String> batchAddresses) {
+        Set<ConstraintViolation<HouseRequestDto>> violations = validator.validate(houseRequestDto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        String normalizedAddress = normalizeAddress(houseRequestDto.address());
+        if (existingAddresses.contains(normalizedAddress)) {
+            return "Дом с таким адресом " + houseRequestDto.address() + " уже зарегестрирован";
+        }
+        if (!batchAddresses.add(normalizedAddress)) {
+            return "Адрес " + houseRequestDto.address() + " повторяется в пакете";
+        }
+        return null;
+    }
+
+    // Must match the lower(address) unique index on houses.
+    private static String normalizeAddress(String address) {
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    private void exportChunk(List<House> chunk, Consumer<List<HouseResponseDto>> chunkConsumer) {
+        List<Long> houseIds = chunk.stream()
+                .map(House::getId)
+                .collect(Collectors.toList());
+        chunkConsumer.accept(mapHouseEntitiesToResponseDtos(chunk, houseRepository.findResidentLinks(houseIds)));
+        chunk.clear();
+        entityManager.clear();
+    }
+
+    static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
         }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new HouseException("Некорректный курсор: " + cursor, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Addresses starting with the prefix in any letter case, as a pattern of the lower case address.
+     */
+    static String addressPattern(String addressPrefix) {
+        return addressPrefix == null || addressPrefix.isEmpty()
+                ? null
+                : escapeLikePattern(normalizeAddress(addressPrefix)) + "%";
+    }
+
+    static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    static List<HouseResponseDto> mapHouseEntitiesToResponseDtos(List<House> houses,
+                                                                 List<IdPair> residentLinks) {
+        Map<Long, List<Long>> residentIdsByHouse = IdPair.groupLinkedIds(residentLinks);
+        return houses.stream()
+                .map(house -> new HouseResponseDto(house.getId(), house.getAddress(), getOwnerId(house),
+                        residentIdsByHouse.getOrDefault(house.getId(), Collections.emptyList()),
+                        house.getVersion()))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isOwner(House house, Long requesterId) {
+        return requesterId != null && requesterId.equals(getOwnerId(house));
+    }
+
+    private static Long getOwnerId(House house) {
+        return house.getOwner() != null ? house.getOwner().getId() : null;
     }
 
-    private static HouseResponseDto mapHouseEntityToResponseDto(House house) {
-        Long ownerId = house.getOwner() != null ? house.getOwner().getId() : null;
+    static HouseResponseDto mapHouseEntityToResponseDto(House house) {
+        Long ownerId = getOwnerId(house);
 
         List<Long> residentIds = Optional.ofNullable(house.getResidents())
                 .orElse(Collections.emptyList())
@@ -141,6 +445,6 @@ public class HouseService {
                 .map(User::getId)
                 .collect(Collectors.toList());
 
-        return new HouseResponseDto(house.getId(), house.getAddress(), ownerId, residentIds);
+        return new HouseResponseDto(house.getId(), house.getAddress(), ownerId, residentIds, house.getVersion());
     }
 }
@@ -0,0 +1,260 @@
+package com.zuzex.crudapplication.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zuzex.crudapplication.dto.ResidentImportRejectedRowDto;
+import com.zuzex.crudapplication.dto.ResidentImportSummaryDto;
+import com.zuzex.crudapplication.repository.HouseRepository;
+import com.zuzex.crudapplication.repository.UserRepository;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Streams {@code (houseId, residentId)} pairs from a CSV or NDJSON upload into {@code house_residents}.
+ * Rows are validated and written per chunk, so memory use does not depend on the upload size.
+ * A CSV may start with the header {@code houseId,residentId}; any other first line is a row.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class ResidentImportService {
+
+    public static final int CHUNK_SIZE = 1000;
+    public static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    /** Ownership is remembered across chunks for up to this many houses, then only for the current chunk's */
+    private static final int MAX_CACHED_HOUSES = 10 * CHUNK_SIZE;
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    private static final String INSERT_LINK_SQL =
+            "INSERT INTO house_residents (house_id, resident_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private final HouseRepository houseRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityCacheEvictor entityCacheEvictor;
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    public ResidentImportSummaryDto importResidents(InputStream inputStream, Format format, Long requesterId) {
+        ImportState state = new ImportState(requesterId);
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith(BYTE_ORDER_MARK)) {
+                    line = line.substring(BYTE_ORDER_MARK.length());
+                }
+                if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                    continue;
+                }
+                state.totalRows++;
+                ImportRow row = format == Format.CSV ? parseCsv(lineNumber, line) : parseNdjson(lineNumber, line);
+                if (row == null) {
+                    state.reject(lineNumber, line, "Некорректный формат строки");
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, state);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, state);
+        }
+        return new ResidentImportSummaryDto(state.totalRows, state.importedRows, state.rejectedRows,
+                state.rejections);
+    }
+
+    private void importChunk(List<ImportRow> chunk, ImportState state) {
+        transactionTemplate.executeWithoutResult(status -> {
+            resolveHouseAccess(chunk, state);
+            Set<Long> residentIds = new HashSet<>();
+            for (ImportRow row : chunk) {
+                residentIds.add(row.residentId());
+            }
+            Set<Long> existingResidentIds = userRepository.findExistingIds(residentIds);
+
+            Set<IdPair> links = new LinkedHashSet<>();
+            int accepted = 0;
+            for (ImportRow row : chunk) {
+                String error = switch (state.houseAccess.get(row.houseId())) {
+                    case MISSING -> "Не найден дом с id: " + row.houseId();
+                    case FORBIDDEN -> "Только владец дома может добавлсять жильцов";
+                    case OWNED -> existingResidentIds.contains(row.residentId())
+                            ? null
+                            : "Жилец не найден: " + row.residentId();
+                };
+                if (error != null) {
+                    state.reject(row.line(), row.value(), error);
+                } else {
+                    links.add(new IdPair(row.houseId(), row.residentId()));
+                    accepted++;
+                }
+            }
+            // Repeated pairs and already existing links are accepted: the import is idempotent.
+            state.importedRows += accepted;
+            writeLinks(links);
+        });
+    }
+
+    private void resolveHouseAccess(List<ImportRow> chunk, ImportState state) {
+        Set<Long> unknownHouseIds = new HashSet<>();
+        for (ImportRow row : chunk) {
+            if (!state.houseAccess.containsKey(row.houseId())) {
+                unknownHouseIds.add(row.houseId());
+            }
+        }
+        if (unknownHouseIds.isEmpty()) {
+            return;
+        }
+        if (state.houseAccess.size() >= MAX_CACHED_HOUSES) {
+            state.houseAccess.keySet().retainAll(chunkHouseIds(chunk));
+        }
+        for (Long houseId : unknownHouseIds) {
+            state.houseAccess.put(houseId, HouseAccess.MISSING);
+        }
+        for (IdPair ownerLink : houseRepository.findOwnerLinks(unknownHouseIds)) {
+            state.houseAccess.put(ownerLink.id(), Objects.equals(ownerLink.linkedId(), state.requesterId)
+                    ? HouseAccess.OWNED
+                    : HouseAccess.FORBIDDEN);
+        }
+    }
+
+    private void writeLinks(Set<IdPair> links) {
+        if (links.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_LINK_SQL, links, links.size(), (ps, link) -> {
+            ps.setLong(1, link.id());
+            ps.setLong(2, link.linkedId());
+        });
+        // The links bypass Hibernate: both sides get a new version and are evicted from the cache
+        Set<Long> houseIds = new HashSet<>();
+        Set<Long> residentIds = new HashSet<>();
+        for (IdPair link : links) {
+            houseIds.add(link.id());
+            residentIds.add(link.linkedId());
+        }
+        houseRepository.incrementVersions(houseIds);
+        userRepository.incrementVersions(residentIds);
+        entityCacheEvictor.evictResidentLinks(links);
+    }
+
+    private static Set<Long> chunkHouseIds(List<ImportRow> chunk) {
+        Set<Long> houseIds = new HashSet<>();
+        for (ImportRow row : chunk) {
+            houseIds.add(row.houseId());
+        }
+        return houseIds;
+    }
+
+    private static boolean isCsvHeader(String line) {
+        String[] columns = splitCsv(line);
+        return columns != null && columns[0].equalsIgnoreCase("houseId") && columns[1].equalsIgnoreCase("residentId");
+    }
+
+    private static ImportRow parseCsv(long lineNumber, String line) {
+        String[] columns = splitCsv(line);
+        if (columns == null) {
+            return null;
+        }
+        try {
+            return new ImportRow(lineNumber, line, Long.parseLong(columns[0]), Long.parseLong(columns[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The two columns of the line, stripped and unquoted, or null if it has another number of columns.
+     */
+    private static String[] splitCsv(String line) {
+        int separator = line.indexOf(',');
+        if (separator < 0 || line.indexOf(',', separator + 1) >= 0) {
+            return null;
+        }
+        return new String[]{unquote(line.substring(0, separator)), unquote(line.substring(separator + 1))};
+    }
+
+    private static String unquote(String value) {
+        String stripped = value.strip();
+        return stripped.length() >= 2 && stripped.startsWith("\"") && stripped.endsWith("\"")
+                ? stripped.substring(1, stripped.length() - 1).strip()
+                : stripped;
+    }
+
+    private ImportRow parseNdjson(long lineNumber, String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            JsonNode houseId = node.get("houseId");
+            JsonNode residentId = node.get("residentId");
+            if (houseId == null || residentId == null || !houseId.canConvertToExactIntegral()
+                    || !residentId.canConvertToExactIntegral()) {
+                return null;
+            }
+            return new ImportRow(lineNumber, line, houseId.asLong(), residentId.asLong());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private enum HouseAccess {
+        OWNED,
+        FORBIDDEN,
+        MISSING
+    }
+
+    private record ImportRow(long line, String value, long houseId, long residentId) {
+    }
+
+    private static final class ImportState {
+        private final Long requesterId;
+        private final Map<Long, HouseAccess> houseAccess = new HashMap<>();
+        private final List<ResidentImportRejectedRowDto> rejections = new ArrayList<>();
+        private long totalRows;
+        private long importedRows;
+        private long rejectedRows;
+
+        private ImportState(Long requesterId) {
+            this.requesterId = requesterId;
+        }
+
+        private void reject(long line, String value, String error) {
+            rejectedRows++;
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add(new ResidentImportRejectedRowDto(line, value, error));
+            }
+        }
+    }
+}
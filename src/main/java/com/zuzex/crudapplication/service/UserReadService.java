@@ -0,0 +1,82 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.dto.UserResponseDto;
+import com.zuzex.crudapplication.exception.UserException;
+import com.zuzex.crudapplication.repository.UserReadRepository;
+import com.zuzex.crudapplication.repository.projection.IdPair;
+import com.zuzex.crudapplication.repository.projection.UserRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The read side of {@link UserService} for the reactive profile, answered over R2DBC.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class UserReadService {
+    public static final int CHUNK_SIZE = 500;
+
+    private final UserReadRepository userReadRepository;
+
+    /**
+     * Streams all users in id order. The next chunk of users and their links is only queried
+     * once the subscriber has demanded the previous one, and no connection is held in between.
+     */
+    public Flux<UserResponseDto> findAllUsers() {
+        return findChunkAfter(0L)
+                .expand(chunk -> chunk.size() < CHUNK_SIZE
+                        ? Mono.empty()
+                        : findChunkAfter(chunk.get(chunk.size() - 1).id()))
+                .concatMapIterable(chunk -> chunk);
+    }
+
+    public Mono<UserResponseDto> getUserById(Long id) {
+        return userReadRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserException("Не найден пользователь с id: " + id,
+                        HttpStatus.NOT_FOUND)))
+                .flatMap(user -> withLinks(List.of(user)))
+                .map(users -> users.get(0));
+    }
+
+    /**
+     * The version of the user without loading it, for answering conditional requests.
+     */
+    public Mono<Long> findUserVersion(Long id) {
+        return userReadRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new UserException("Не найден пользователь с id: " + id,
+                        HttpStatus.NOT_FOUND)));
+    }
+
+    private Mono<List<UserResponseDto>> findChunkAfter(long afterId) {
+        return userReadRepository.findPageAfter(afterId, CHUNK_SIZE)
+                .collectList()
+                .flatMap(users -> users.isEmpty() ? Mono.just(List.<UserResponseDto>of()) : withLinks(users));
+    }
+
+    private Mono<List<UserResponseDto>> withLinks(List<UserRow> users) {
+        List<Long> userIds = users.stream()
+                .map(UserRow::id)
+                .toList();
+        return Mono.zip(userReadRepository.findOwnedHouseLinks(userIds).collectList(),
+                        userReadRepository.findResidenceLinks(userIds).collectList())
+                .map(links -> {
+                    Map<Long, List<Long>> ownedHouseIdsByUser = IdPair.groupLinkedIds(links.getT1());
+                    Map<Long, List<Long>> residenceIdsByUser = IdPair.groupLinkedIds(links.getT2());
+                    return users.stream()
+                            .map(user -> new UserResponseDto(user.id(), user.name(), user.age(),
+                                    ownedHouseIdsByUser.getOrDefault(user.id(), Collections.emptyList()),
+                                    residenceIdsByUser.getOrDefault(user.id(), Collections.emptyList()),
+                                    user.version()))
+                            .toList();
+                });
+    }
+}
@@ -1,29 +1,46 @@
 package com.zuzex.crudapplication.service;
 
+import com.zuzex.crudapplication.config.MetricsConfig;
+import com.zuzex.crudapplication.dto.UserPatchDto;
 import com.zuzex.crudapplication.dto.UserRequestDto;
 import com.zuzex.crudapplication.dto.UserResponseDto;
 import com.zuzex.crudapplication.exception.UserException;
 import com.zuzex.crudapplication.model.House;
 import com.zuzex.crudapplication.model.User;
 import com.zuzex.crudapplication.repository.UserRepository;
+import com.zuzex.crudapplication.repository.projection.IdPair;
 import com.zuzex.crudapplication.security.auth.AuthenticationException;
+import com.zuzex.crudapplication.security.config.PrincipalCache;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityManager entityManager;
+    private final PrincipalCache principalCache;
+    private final EntityCacheEvictor entityCacheEvictor;
 
     @Transactional(readOnly = true)
     public List<UserResponseDto> findAllUsers() {
@@ -31,9 +48,23 @@ public class UserService {
         if (userList.isEmpty()) {
             return Collections.emptyList();
         }
-        return userList.stream()
-                .map(UserService::mapUserEntityToResponseDto)
-                .collect(Collectors.toList());
+        return mapUserEntitiesToResponseDtos(userList,
+                userRepository.findAllOwnedHouseLinks(), userRepository.findAllResidenceLinks());
+    }
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<List<UserResponseDto>> chunkConsumer) {
+        List<User> chunk = new ArrayList<>(UserRepository.EXPORT_FETCH_SIZE);
+        try (Stream<User> users = userRepository.streamAllOrderedById()) {
+            users.forEachOrdered(user -> {
+                chunk.add(user);
+                if (chunk.size() == UserRepository.EXPORT_FETCH_SIZE) {
+                    exportChunk(chunk, chunkConsumer);
+                }
+            });
+        }
+        if (!chunk.isEmpty()) {
+            exportChunk(chunk, chunkConsumer);
+        }
     }
     @Transactional(readOnly = true)
     public UserResponseDto getUserById(Long id) {
@@ -42,6 +73,15 @@ public class UserService {
                 .orElseThrow(() -> new UserException("Не найден пользователь с id: " + id, HttpStatus.NOT_FOUND));
     }
 
+    /**
+     * The version of the user without loading it, for answering conditional requests.
+     */
+    @Transactional(readOnly = true)
+    public Long findUserVersion(Long id) {
+        return userRepository.findVersionById(id)
+                .orElseThrow(() -> new UserException("Не найден пользователь с id: " + id, HttpStatus.NOT_FOUND));
+    }
+
     @Transactional
     public UserResponseDto saveUser(UserRequestDto registrationUser) {
         if (userRepository.existsByName(registrationUser.name())) {
@@ -58,22 +98,87 @@ public class UserService {
     }
     @Transactional
     public void deleteUser(Long id) {
-        userRepository.findById(id)
+        User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserException("Не найден пользователь с id: " + id, HttpStatus.NOT_FOUND));
         userRepository.deleteById(id);
+        principalCache.evict(user.getName());
     }
+    /**
+     * @param expectedVersion the version the client read, or {@code null} to update unconditionally
+     */
     @Transactional
-    public UserResponseDto updateUser(Long id, UserRequestDto userRequestDto) {
+    public UserResponseDto updateUser(Long id, UserRequestDto userRequestDto, Long expectedVersion) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserException("Не найден пользователь с id: " + id, HttpStatus.NOT_FOUND));
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new UserException("Пользователь был изменен после получения, запросите его заново",
+                    HttpStatus.PRECONDITION_FAILED);
+        }
+        principalCache.evict(user.getName());
         if (userRequestDto.name() != null) user.setName(userRequestDto.name());
         if (userRequestDto.age() != null) user.setAge(userRequestDto.age());
         if (userRequestDto.password() != null) user.setPassword(passwordEncoder.encode(userRequestDto.password()));
-        User updatedUser = userRepository.save(user);
+        // Flushed so that the response carries the incremented version
+        User updatedUser = userRepository.saveAndFlush(user);
         return mapUserEntityToResponseDto(updatedUser);
     }
 
-    private static UserResponseDto mapUserEntityToResponseDto(User user) {
+    /**
+     * Applies the given fields with one conditional UPDATE, without loading the user.
+     *
+     * @return the new version of the user
+     */
+    @Transactional
+    public Long patchUser(Long id, UserPatchDto userPatchDto) {
+        String password = userPatchDto.password() == null ? null : passwordEncoder.encode(userPatchDto.password());
+        int updated;
+        try {
+            updated = userRepository.patch(id, userPatchDto.version(), userPatchDto.name(), userPatchDto.age(),
+                    password);
+        } catch (DataIntegrityViolationException e) {
+            throw new UserException("Пользователь с именем " + userPatchDto.name() + " уже существует",
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (updated == 0) {
+            if (!userRepository.existsById(id)) {
+                throw new UserException("Не найден пользователь с id: " + id, HttpStatus.NOT_FOUND);
+            }
+            throw new UserException("Пользователь был изменен другим запросом, запросите его заново",
+                    HttpStatus.CONFLICT);
+        }
+        principalCache.evictById(id);
+        entityCacheEvictor.evictUsers(List.of(id));
+        if (userPatchDto.name() != null) {
+            // The cached findByName results
+            entityCacheEvictor.evictQueries();
+        }
+        return userPatchDto.version() + 1;
+    }
+
+    private void exportChunk(List<User> chunk, Consumer<List<UserResponseDto>> chunkConsumer) {
+        List<Long> userIds = chunk.stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+        chunkConsumer.accept(mapUserEntitiesToResponseDtos(chunk,
+                userRepository.findOwnedHouseLinks(userIds), userRepository.findResidenceLinks(userIds)));
+        chunk.clear();
+        entityManager.clear();
+    }
+
+    static List<UserResponseDto> mapUserEntitiesToResponseDtos(List<User> users,
+                                                               List<IdPair> ownedHouseLinks,
+                                                               List<IdPair> residenceLinks) {
+        Map<Long, List<Long>> ownedHouseIdsByUser = IdPair.groupLinkedIds(ownedHouseLinks);
+        Map<Long, List<Long>> residenceIdsByUser = IdPair.groupLinkedIds(residenceLinks);
+        return users.stream()
+                .map(user -> new UserResponseDto(user.getId(), user.getName(), user.getAge(),
+                        ownedHouseIdsByUser.getOrDefault(user.getId(), Collections.emptyList()),
+                        residenceIdsByUser.getOrDefault(user.getId(), Collections.emptyList()),
+                        user.getVersion()))
+                .collect(Collectors.toList());
+    }
+
+    static UserResponseDto mapUserEntityToResponseDto(User user) {
         List<Long> ownedHouseIds = Optional.ofNullable(user.getOwnedHouses())
                 .orElse(Collections.emptyList())
                 .stream()
@@ -86,7 +191,8 @@ public class UserService {
                 .map(House::getId)
                 .collect(Collectors.toList());
 
-        return new UserResponseDto(user.getId(), user.getName(), user.getAge(), ownedHouseIds, residenceIds);
+        return new UserResponseDto(user.getId(), user.getName(), user.getAge(), ownedHouseIds, residenceIds,
+                user.getVersion());
     }
 
 
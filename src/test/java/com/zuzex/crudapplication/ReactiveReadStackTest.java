@@ -0,0 +1,205 @@
+package com.zuzex.crudapplication;
+
+import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.dto.UserResponseDto;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import com.zuzex.crudapplication.security.config.JwtService;
+import com.zuzex.crudapplication.service.UserReadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The read stack of the reactive profile over an H2 database migrated by Liquibase through JDBC
+ * and read through R2DBC.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-read?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.liquibase.enabled=true",
+        "spring.liquibase.url=jdbc:h2:mem:reactive-read;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.liquibase.user=sa",
+        "spring.liquibase.password="})
+@ActiveProfiles("reactive")
+class ReactiveReadStackTest {
+    private static final int USERS = UserReadService.CHUNK_SIZE * 2 + 1;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        for (String sql : List.of(
+                "DELETE FROM house_residents",
+                "DELETE FROM houses",
+                "DELETE FROM users",
+                "INSERT INTO users (id, name, age, password) SELECT \"X\", 'user-' || \"X\", 30, 'password' FROM system_range(1, "
+                        + USERS + ")",
+                "INSERT INTO houses (id, address, owner_id) VALUES (1, 'Lenina 1', 1), (2, 'Lenina 2', 1), (3, 'Mira 3', 2)",
+                "INSERT INTO house_residents (house_id, resident_id) VALUES (1, 2), (1, 3)")) {
+            databaseClient.sql(sql).then().block();
+        }
+        token = jwtService.generateToken(new AuthenticatedUser(1L, "user-1", "password"));
+    }
+
+    @Test
+    void getAllUsers_StreamsEveryChunkInIdOrder() {
+        List<UserResponseDto> users = get("/api/v1/users")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UserResponseDto.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(users);
+        assertEquals(USERS, users.size());
+        assertEquals(USERS, users.get(USERS - 1).id());
+        assertEquals(List.of(1L, 2L), users.get(0).ownedHouseIds());
+        assertEquals(List.of(1L), users.get(1).residenceIds());
+    }
+
+    @Test
+    void getAllUsers_WhenNdjsonAccepted_WritesOneUserPerLine() {
+        String body = get("/api/v1/users")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(body);
+        assertEquals(USERS, body.lines().count());
+    }
+
+    @Test
+    void getAllHouses_FollowsCursorToLastPage() {
+        var firstPage = get("/api/v1/houses?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(HouseResponseDto.class)
+                .returnResult();
+
+        List<HouseResponseDto> houses = firstPage.getResponseBody();
+        String cursor = firstPage.getResponseHeaders().getFirst("X-Next-Cursor");
+        assertNotNull(houses);
+        assertEquals(List.of(1L, 2L), houses.stream().map(HouseResponseDto::id).toList());
+        assertEquals(List.of(2L, 3L), houses.get(0).residentIds());
+        assertNotNull(cursor);
+
+        var lastPage = get("/api/v1/houses?limit=2&cursor=" + cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(HouseResponseDto.class)
+                .returnResult();
+
+        assertEquals(List.of(3L), lastPage.getResponseBody().stream().map(HouseResponseDto::id).toList());
+        assertNull(lastPage.getResponseHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void getAllHouses_FiltersByOwnerAndAddressPrefix() {
+        get("/api/v1/houses?ownerId=1&addressPrefix=Lenina")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(HouseResponseDto.class)
+                .value(houses -> assertEquals(List.of(1L, 2L), houses.stream().map(HouseResponseDto::id).toList()));
+        get("/api/v1/houses?addressPrefix=LENINA")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(HouseResponseDto.class)
+                .value(houses -> assertEquals(List.of(1L, 2L), houses.stream().map(HouseResponseDto::id).toList()));
+        get("/api/v1/houses?ownerId=2&addressPrefix=Lenina")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(HouseResponseDto.class).hasSize(0);
+    }
+
+    @Test
+    void getAllHouses_WhenLimitOutOfRange_ReturnsBadRequest() {
+        get("/api/v1/houses?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getHouseById_WhenETagMatches_ReturnsNotModified() {
+        String eTag = get("/api/v1/houses/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(HouseResponseDto.class).value(house -> assertEquals("Lenina 1", house.address()))
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertEquals("\"0\"", eTag);
+
+        get("/api/v1/houses/1")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void getHouseById_WhenMissing_ReturnsNotFound() {
+        get("/api/v1/houses/404")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("Не найден дом с id: 404");
+    }
+
+    @Test
+    void getUserById_ReturnsUserWithETag() {
+        get("/api/v1/users/2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody(UserResponseDto.class)
+                .value(user -> assertEquals(List.of(3L), user.ownedHouseIds()));
+    }
+
+    @Test
+    void getHouseById_WithoutValidToken_ReturnsForbidden() {
+        webTestClient.get().uri("/api/v1/houses/1")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.FORBIDDEN);
+        webTestClient.get().uri("/api/v1/houses/1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.FORBIDDEN);
+        webTestClient.get().uri("/api/v1/houses/1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer "
+                        + jwtService.generateToken(new AuthenticatedUser(USERS + 1L, "unknown", "password")))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> get(String uri) {
+        return webTestClient.get().uri(uri)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
@@ -0,0 +1,98 @@
+package com.zuzex.crudapplication;
+
+import com.zuzex.crudapplication.config.SqlStatementBudgetFilter;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import com.zuzex.crudapplication.security.config.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The read endpoints through the whole servlet stack, with every house owned and lived in, so their lazy
+ * collections are read. The h2 profile fails requests over their SQL statement budget, so an N+1 query
+ * fails these tests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class SqlStatementBudgetTest {
+    private static final int USERS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        for (String sql : List.of(
+                "DELETE FROM house_residents",
+                "DELETE FROM houses",
+                "DELETE FROM users",
+                "INSERT INTO users (id, name, age, password) SELECT \"X\", 'user-' || \"X\", 30, 'password' FROM system_range(1, "
+                        + USERS + ")",
+                "INSERT INTO houses (id, address, owner_id) SELECT \"X\", 'Lenina ' || \"X\", \"X\" FROM system_range(1, "
+                        + USERS + ")",
+                "INSERT INTO house_residents (house_id, resident_id) SELECT h.id, u.id FROM houses h JOIN users u ON u.id <> h.id")) {
+            jdbcTemplate.update(sql);
+        }
+        token = jwtService.generateToken(new AuthenticatedUser(1L, "user-1", "password"));
+    }
+
+    @Test
+    void getAllHouses_StaysWithinBudget() throws Exception {
+        perform("/api/v1/houses")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS))
+                .andExpect(jsonPath("$[0].residentIds.length()").value(USERS - 1));
+    }
+
+    @Test
+    void getAllHouses_WhenFiltered_StaysWithinBudget() throws Exception {
+        perform("/api/v1/houses?ownerId=1&addressPrefix=lenina")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].residentIds.length()").value(USERS - 1));
+    }
+
+    @Test
+    void getHouseById_StaysWithinBudget() throws Exception {
+        perform("/api/v1/houses/1")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.residentIds.length()").value(USERS - 1));
+    }
+
+    @Test
+    void getAllUsers_StaysWithinBudget() throws Exception {
+        perform("/api/v1/users")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS))
+                .andExpect(jsonPath("$[0].ownedHouseIds.length()").value(1))
+                .andExpect(jsonPath("$[0].residenceIds.length()").value(USERS - 1));
+    }
+
+    private ResultActions perform(String uri) throws Exception {
+        return mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+}
@@ -0,0 +1,91 @@
+package com.zuzex.crudapplication.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the limit with a service that runs {@code capacity} requests at the base latency and queues the rest,
+ * keeping as many requests in flight as the limit admits.
+ */
+class AdaptiveConcurrencyLimitTest {
+    private static final double BASE_LATENCY = 10_000_000;
+
+    @Test
+    void tryAcquire_WhenLimitIsReached_Refuses() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 1.5, 10);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+
+        limit.release((long) BASE_LATENCY);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void release_UnderSustainedLoad_SettlesAboveCapacityWithoutRunningAway() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 200, 1.5, 10);
+
+        saturate(limit, 20, BASE_LATENCY, 20_000);
+
+        assertTrue(limit.limit() > 20 && limit.limit() < 60, "limit " + limit.limit());
+    }
+
+    @Test
+    void release_WhenLimitQueuesRequests_ShrinksIt() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 200, 1.5, 10);
+        saturate(limit, 100, BASE_LATENCY, 5_000);
+        int before = limit.limit();
+
+        saturate(limit, 20, BASE_LATENCY, 5_000);
+
+        assertTrue(limit.limit() < before / 2, before + " -> " + limit.limit());
+    }
+
+    @Test
+    void release_WhenServiceBecomesSlower_RecoversThroughput() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 200, 1.5, 10);
+        saturate(limit, 20, BASE_LATENCY, 5_000);
+
+        saturate(limit, 20, 5 * BASE_LATENCY, 20_000);
+
+        assertTrue(limit.limit() >= 15, "limit " + limit.limit());
+    }
+
+    @Test
+    void release_StaysWithinBounds() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 10, 30, 1.5, 10);
+
+        saturate(limit, 1000, BASE_LATENCY, 5_000);
+        assertEquals(30, limit.limit());
+
+        for (int i = 0; i < 100; i++) {
+            saturate(limit, 1, BASE_LATENCY, 50);
+            assertTrue(limit.limit() >= 10, "limit " + limit.limit());
+        }
+    }
+
+    @Test
+    void release_WhenDemandStaysFarBelowLimit_DoesNotGrowIt() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 1, 200, 1.5, 10);
+
+        for (int i = 0; i < 5_000; i++) {
+            while (limit.inFlight() < 3 && limit.tryAcquire()) {
+                // three clients
+            }
+            limit.release((long) BASE_LATENCY);
+        }
+
+        assertEquals(20, limit.limit());
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimit limit, int capacity, double baseLatency, int requests) {
+        for (int i = 0; i < requests; i++) {
+            while (limit.tryAcquire()) {
+                // every slot the limit frees is taken at once
+            }
+            limit.release((long) (baseLatency * Math.max(1.0, limit.inFlight() / (double) capacity)));
+        }
+    }
+}
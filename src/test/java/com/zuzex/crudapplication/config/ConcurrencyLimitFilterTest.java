@@ -0,0 +1,117 @@
+package com.zuzex.crudapplication.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            new ConcurrencyLimitProperties(true, 1.5, 10, 3,
+                    new ConcurrencyLimitProperties.Limit(1, 1, 1),
+                    new ConcurrencyLimitProperties.Limit(1, 1, 1),
+                    new ConcurrencyLimitProperties.Limit(1, 1, 1)),
+            new ObjectMapper().findAndRegisterModules(), meterRegistry);
+
+    @Test
+    void doFilter_WhenGroupIsAtItsLimit_Rejects503WithRetryAfter() throws Exception {
+        AtomicReference<MockHttpServletResponse> rejected = new AtomicReference<>();
+
+        filter.doFilter(request("POST", "/api/v1/houses"), new MockHttpServletResponse(), chain(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("PUT", "/api/v1/houses/1"), response, new MockFilterChain());
+            rejected.set(response);
+        }));
+
+        assertEquals(503, rejected.get().getStatus());
+        assertEquals("3", rejected.get().getHeader("Retry-After"));
+        assertTrue(rejected.get().getContentAsString().contains("Сервис перегружен"));
+        assertEquals(1.0, meterRegistry.get("http.server.concurrency.rejected")
+                .tag("group", "house-writes").counter().count());
+    }
+
+    @Test
+    void doFilter_LimitsEachGroupSeparately() throws Exception {
+        AtomicReference<MockHttpServletResponse> read = new AtomicReference<>();
+
+        filter.doFilter(request("POST", "/api/v1/houses"), new MockHttpServletResponse(), chain(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("GET", "/api/v1/houses/1"), response, new MockFilterChain());
+            read.set(response);
+        }));
+
+        assertEquals(200, read.get().getStatus());
+    }
+
+    @Test
+    void doFilter_ReleasesPermitAfterRequest() throws Exception {
+        filter.doFilter(request("POST", "/api/v1/auth/authenticate"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("POST", "/api/v1/auth/authenticate"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0.0, meterRegistry.get("http.server.concurrency.in-flight")
+                .tag("group", "auth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("http.server.concurrency.limit")
+                .tag("group", "auth").gauge().value());
+    }
+
+    @Test
+    void doFilter_WhenResponseIsStreamed_HoldsPermitUntilCompletion() throws Exception {
+        MockHttpServletRequest export = request("GET", "/api/v1/houses/export");
+        export.setAsyncSupported(true);
+
+        filter.doFilter(export, new MockHttpServletResponse(), chain(() -> export.startAsync()));
+
+        assertEquals(1.0, meterRegistry.get("http.server.concurrency.in-flight")
+                .tag("group", "reads").gauge().value());
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        assertEquals(0.0, meterRegistry.get("http.server.concurrency.in-flight")
+                .tag("group", "reads").gauge().value());
+    }
+
+    @Test
+    void endpointGroupOf_SkipsUserWritesAndActuator() {
+        assertNull(ConcurrencyLimitFilter.EndpointGroup.of(request("PUT", "/api/v1/users/1")));
+        assertNull(ConcurrencyLimitFilter.EndpointGroup.of(request("GET", "/actuator/prometheus")));
+        assertEquals(ConcurrencyLimitFilter.EndpointGroup.READS,
+                ConcurrencyLimitFilter.EndpointGroup.of(request("GET", "/api/v1/users")));
+        assertEquals(ConcurrencyLimitFilter.EndpointGroup.HOUSE_WRITES,
+                ConcurrencyLimitFilter.EndpointGroup.of(request("POST", "/api/v1/houses/residents/import")));
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+
+    private static MockFilterChain chain(ThrowingRunnable insideRequest) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try {
+                    insideRequest.run();
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+        });
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,94 @@
+package com.zuzex.crudapplication.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new RateLimitProperties(true, 1000,
+                    new RateLimitProperties.Budget(2, Duration.ofSeconds(60)),
+                    new RateLimitProperties.Budget(3, Duration.ofSeconds(30))),
+            new ObjectMapper().findAndRegisterModules(), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WritesRateLimitHeaders() throws Exception {
+        authenticate(1L);
+
+        MockHttpServletResponse response = send("GET", "/api/v1/houses", "10.0.0.1");
+
+        assertEquals(200, response.getStatus());
+        assertEquals("3", response.getHeader(RateLimitFilter.LIMIT_HEADER));
+        assertEquals("2", response.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertEquals("10", response.getHeader(RateLimitFilter.RESET_HEADER));
+        assertEquals("3;w=30", response.getHeader(RateLimitFilter.POLICY_HEADER));
+    }
+
+    @Test
+    void doFilter_WhenBudgetIsUsedUp_Rejects429WithRetryAfter() throws Exception {
+        send("POST", "/api/v1/auth/authenticate", "10.0.0.1");
+        send("POST", "/api/v1/auth/authenticate", "10.0.0.1");
+
+        MockHttpServletResponse response = send("POST", "/api/v1/auth/authenticate", "10.0.0.1");
+
+        assertEquals(429, response.getStatus());
+        assertEquals("30", response.getHeader("Retry-After"));
+        assertEquals("0", response.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertTrue(response.getContentAsString().contains("Слишком много запросов"));
+        assertEquals(1.0, meterRegistry.get("http.server.rate-limit.rejected").tag("budget", "auth")
+                .counter().count());
+        assertEquals(200, send("POST", "/api/v1/auth/authenticate", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void doFilter_KeysApiByUserAndAuthByAddress() throws Exception {
+        authenticate(1L);
+        for (int i = 0; i < 3; i++) {
+            send("GET", "/api/v1/houses", "10.0.0.1");
+        }
+
+        assertEquals(429, send("GET", "/api/v1/houses", "10.0.0.9").getStatus());
+        assertEquals(200, send("POST", "/api/v1/auth/authenticate", "10.0.0.1").getStatus());
+        authenticate(2L);
+        assertEquals(200, send("GET", "/api/v1/houses", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void doFilter_SkipsRequestsOutsideTheApi() throws Exception {
+        MockHttpServletResponse response = send("GET", "/actuator/prometheus", "10.0.0.1");
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(RateLimitFilter.LIMIT_HEADER));
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String address) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user-" + userId, "password");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
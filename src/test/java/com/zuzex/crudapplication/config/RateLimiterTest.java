@@ -0,0 +1,115 @@
+package com.zuzex.crudapplication.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private final AtomicLong now = new AtomicLong(1_000_000_000_000L);
+    private final RateLimiter limiter = new RateLimiter(10, Duration.ofSeconds(60), 1000, now::get);
+
+    @Test
+    void tryAcquire_AllowsBurstUpToCapacityThenRejects() {
+        for (int i = 9; i >= 0; i--) {
+            RateLimiter.Decision decision = limiter.tryAcquire("user:1");
+            assertTrue(decision.allowed());
+            assertEquals(i, decision.remaining());
+        }
+
+        RateLimiter.Decision rejected = limiter.tryAcquire("user:1");
+
+        assertFalse(rejected.allowed());
+        assertEquals(0, rejected.remaining());
+        assertEquals(6, rejected.retryAfterSeconds());
+        assertEquals(60, rejected.resetSeconds());
+    }
+
+    @Test
+    void tryAcquire_RefillsOneRequestPerInterval() {
+        drain("user:1");
+
+        advance(Duration.ofSeconds(5));
+        assertFalse(limiter.tryAcquire("user:1").allowed());
+
+        advance(Duration.ofSeconds(1));
+        assertTrue(limiter.tryAcquire("user:1").allowed());
+        assertFalse(limiter.tryAcquire("user:1").allowed());
+    }
+
+    @Test
+    void tryAcquire_KeepsKeysApart() {
+        drain("user:1");
+
+        assertTrue(limiter.tryAcquire("user:2").allowed());
+    }
+
+    @Test
+    void tryAcquire_WhenFull_DropsIdleKeysWithoutLoss() {
+        RateLimiter small = new RateLimiter(10, Duration.ofSeconds(60), 2, now::get);
+        for (int i = 0; i < 10; i++) {
+            small.tryAcquire("user:1");
+        }
+
+        advance(Duration.ofSeconds(61));
+        small.tryAcquire("user:2");
+        small.tryAcquire("user:3");
+
+        assertEquals(2, small.size());
+        assertEquals(9, small.tryAcquire("user:1").remaining());
+    }
+
+    @Test
+    void tryAcquire_BoundsKeysInMemory() {
+        for (int i = 0; i < 5000; i++) {
+            limiter.tryAcquire("ip:10.0.0." + i);
+            assertTrue(limiter.size() <= 1000, "keys " + limiter.size());
+        }
+    }
+
+    @Test
+    void tryAcquire_WhenContended_AllowsExactlyCapacity() throws Exception {
+        RateLimiter contended = new RateLimiter(1000, Duration.ofHours(1), 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> clients = new ArrayList<>();
+            for (int client = 0; client < 8; client++) {
+                clients.add(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (contended.tryAcquire("user:1").allowed()) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                });
+            }
+            int allowed = 0;
+            for (Future<Integer> result : executor.invokeAll(clients)) {
+                allowed += result.get();
+            }
+
+            assertEquals(1000, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void drain(String key) {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(key).allowed());
+        }
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
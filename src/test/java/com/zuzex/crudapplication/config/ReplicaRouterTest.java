@@ -0,0 +1,252 @@
+package com.zuzex.crudapplication.config;
+
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRouterTest {
+    private final DataSource primary = dataSource("primary");
+    private final DataSource first = dataSource("replica-0");
+    private final DataSource second = dataSource("replica-1");
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getConnection_WhenNoTransactionOrReadWrite_UsesPrimary() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+
+        assertEquals("primary", router.getConnection().getCatalog());
+        assertEquals("primary", inTransaction(false, router).getCatalog());
+    }
+
+    @Test
+    void getConnection_WhenRoundRobin_AlternatesReplicas() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            targets.add(inTransaction(true, router).getCatalog());
+        }
+
+        assertEquals(List.of("replica-0", "replica-1", "replica-0", "replica-1"), targets);
+    }
+
+    @Test
+    void getConnection_WhenLeastOutstanding_PrefersReplicaWithFewerOpenConnections() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.LEAST_OUTSTANDING);
+        Connection held = inTransaction(true, router);
+        assertEquals("replica-0", held.getCatalog());
+
+        for (int i = 0; i < 3; i++) {
+            Connection connection = inTransaction(true, router);
+            assertEquals("replica-1", connection.getCatalog());
+            connection.close();
+        }
+        held.close();
+    }
+
+    @Test
+    void getConnection_WhenReplicaRefusesConnection_EjectsItUntilHealthCheckPasses() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+        Connection healthy = first.getConnection();
+        when(first.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+
+        doReturn(healthy).when(first).getConnection();
+        router.checkHealth();
+
+        List<String> targets = List.of(inTransaction(true, router).getCatalog(),
+                inTransaction(true, router).getCatalog());
+        assertEquals(List.of("replica-0", "replica-1"), targets.stream().sorted().toList());
+    }
+
+    @Test
+    void getConnection_WhenEveryReplicaIsDown_FallsBackToPrimary() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+        when(first.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(second.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertEquals("primary", inTransaction(true, router).getCatalog());
+    }
+
+    @Test
+    void getConnection_WhenReplicaPoolIsExhausted_TriesNextReplicaWithoutEjecting() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+        Connection healthy = first.getConnection();
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("replica-0 - Connection is not available"));
+
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+        router.checkHealth();
+
+        doReturn(healthy).when(first).getConnection();
+        List<String> targets = List.of(inTransaction(true, router).getCatalog(),
+                inTransaction(true, router).getCatalog());
+        assertEquals(List.of("replica-0", "replica-1"), targets.stream().sorted().toList());
+    }
+
+    @Test
+    void getConnection_WhenEveryReplicaPoolIsExhausted_FallsBackToPrimary() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("replica-0 - Connection is not available"));
+        when(second.getConnection()).thenThrow(new SQLTransientConnectionException("replica-1 - Connection is not available"));
+
+        assertEquals("primary", inTransaction(true, router).getCatalog());
+    }
+
+    @Test
+    void getConnection_WhenReplicaPoolTimesOutOnConnectionFailure_EjectsIt() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException(
+                "replica-0 - Connection is not available", "08001", new SQLException("Connection refused")));
+
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+    }
+
+    @Test
+    void checkHealth_WhenReplicaLagsBehind_EjectsIt() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+        Connection lagging = first.getConnection();
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+        when(lagging.getMetaData()).thenReturn(metaData);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(lagging.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(30.0);
+
+        router.checkHealth();
+
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+        assertEquals("replica-1", inTransaction(true, router).getCatalog());
+    }
+
+    @Test
+    void getConnection_AfterUsersCommittedWrite_ReadsOnlyTheirRowsFromPrimary() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+        authenticate(1L);
+        committedWrite(router);
+
+        assertEquals("primary", inTransaction(true, router).getCatalog());
+
+        authenticate(2L);
+        assertEquals("replica-0", inTransaction(true, router).getCatalog());
+    }
+
+    @Test
+    void getConnection_WhenReadYourWritesWindowHasPassed_ReadsFromReplica() throws Exception {
+        ReplicaRouter router = new ReplicaRouter(primary, replicas(), ReplicaRoutingProperties.Policy.ROUND_ROBIN,
+                Duration.ofSeconds(10), Duration.ofMillis(50), new SimpleMeterRegistry());
+        authenticate(1L);
+        committedWrite(router);
+
+        Thread.sleep(100);
+
+        assertEquals("replica-0", inTransaction(true, router).getCatalog());
+    }
+
+    @Test
+    void onPrimary_RoutesReadOnlyTransactionsToPrimary() throws Exception {
+        ReplicaRouter router = router(ReplicaRoutingProperties.Policy.ROUND_ROBIN);
+
+        String target = router.onPrimary(() -> {
+            try {
+                return inTransaction(true, router).getCatalog();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals("primary", target);
+        assertEquals("replica-0", inTransaction(true, router).getCatalog());
+    }
+
+    private ReplicaRouter router(ReplicaRoutingProperties.Policy policy) {
+        return new ReplicaRouter(primary, replicas(), policy, Duration.ofSeconds(10), Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+    }
+
+    private Map<String, DataSource> replicas() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", first);
+        replicas.put("replica-1", second);
+        return replicas;
+    }
+
+    private static Connection inTransaction(boolean readOnly, ReplicaRouter router) throws SQLException {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try {
+            return router.getConnection();
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private static void committedWrite(ReplicaRouter router) throws SQLException {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            router.getConnection();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private static void authenticate(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user-" + userId, "password");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static DataSource dataSource(String name) {
+        try {
+            Connection connection = mock(Connection.class);
+            when(connection.getCatalog()).thenReturn(name);
+            when(connection.isValid(anyInt())).thenReturn(true);
+            DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+            when(metaData.getDatabaseProductName()).thenReturn("H2");
+            when(connection.getMetaData()).thenReturn(metaData);
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            return dataSource;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.zuzex.crudapplication.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SlowQueryListenerTest {
+    private static final String SELECT = "select h.id, h.address from houses h where h.owner_id=?";
+
+    private final SlowQueryExplainer explainer = mock(SlowQueryExplainer.class);
+    private final SlowQueryListener listener = new SlowQueryListener(
+            new SlowQueryProperties(Duration.ofMillis(100), Duration.ofMillis(500), 2), explainer);
+
+    @Test
+    void afterQuery_WhenSelectIsOverExplainThreshold_SubmitsItWithBindValues() throws Exception {
+        ParameterSetOperation ownerId = new ParameterSetOperation(
+                PreparedStatement.class.getMethod("setLong", int.class, long.class), new Object[]{1, 42L});
+
+        listener.afterQuery(execution(600), List.of(query(SELECT, List.of(ownerId))));
+
+        verify(explainer).submit(eq(SELECT), eq(List.of(ownerId)), eq(true), anyString(), eq(600L));
+    }
+
+    @Test
+    void afterQuery_WhenWithQueryIsOverExplainThreshold_ExplainsItWithoutAnalyze() {
+        String with = "with moved as (delete from house_residents where resident_id=? returning house_id) "
+                + "select count(*) from moved";
+
+        listener.afterQuery(execution(600), List.of(query(with, List.of())));
+
+        verify(explainer).submit(eq(with), eq(List.of()), eq(false), anyString(), eq(600L));
+    }
+
+    @Test
+    void afterQuery_WhenUnderExplainThreshold_DoesNotExplain() {
+        listener.afterQuery(execution(200), List.of(query(SELECT, List.of())));
+
+        verify(explainer, never()).submit(anyString(), any(), anyBoolean(), anyString(), anyLong());
+    }
+
+    @Test
+    void afterQuery_WhenSlowStatementWrites_DoesNotExplain() {
+        listener.afterQuery(execution(600), List.of(query("delete from houses where id=?", List.of())));
+
+        verify(explainer, never()).submit(anyString(), any(), anyBoolean(), anyString(), anyLong());
+    }
+
+    @Test
+    void explained_KeepsNewestPlansUpToCapacity() {
+        try (SlowQueryExplainer ringBuffer = new SlowQueryExplainer(() -> null, 2)) {
+            for (int i = 1; i <= 3; i++) {
+                ringBuffer.add(new SlowQueryExplainer.ExplainedQuery(Instant.now(), "HouseService.findAllHouses",
+                        i, SELECT, "plan " + i));
+            }
+
+            assertEquals(List.of("plan 3", "plan 2"),
+                    ringBuffer.explained().stream().map(SlowQueryExplainer.ExplainedQuery::plan).toList());
+        }
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setStatementType(StatementType.PREPARED);
+        return execution;
+    }
+
+    private static QueryInfo query(String sql, List<ParameterSetOperation> parameters) {
+        QueryInfo query = new QueryInfo(sql);
+        if (!parameters.isEmpty()) {
+            query.getParametersList().add(parameters);
+        }
+        return query;
+    }
+}
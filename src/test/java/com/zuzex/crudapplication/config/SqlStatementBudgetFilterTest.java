@@ -0,0 +1,101 @@
+package com.zuzex.crudapplication.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementBudgetFilterTest {
+    private static final String ENDPOINT_PATTERN = "/api/v1/houses/{id}";
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void doFilter_WritesStatementHeadersAndMetrics() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(Map.of(), true).doFilter(request(), response, chain(2, true));
+
+        assertEquals("2", response.getHeader(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+        assertNotNull(response.getHeader(SqlStatementBudgetFilter.TIME_HEADER));
+        assertEquals(2.0, meterRegistry.get("http.server.requests.sql.statements")
+                .tag("uri", ENDPOINT_PATTERN).summary().totalAmount());
+    }
+
+    @Test
+    void doFilter_WhenBudgetExceededInFailMode_ThrowsWithRepeatedStatement() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> filter(Map.of("GET " + ENDPOINT_PATTERN, 3), true)
+                        .doFilter(request(), new MockHttpServletResponse(), chain(5, false)));
+
+        assertTrue(exception.getMessage().contains("(5 times): select * from house_residents where house_id=?"),
+                exception.getMessage());
+    }
+
+    @Test
+    void doFilter_WhenBudgetExceededWithoutFailMode_CompletesRequest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(Map.of("GET " + ENDPOINT_PATTERN, 3), false).doFilter(request(), response, chain(5, false));
+
+        assertEquals("5", response.getHeader(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    void doFilter_WhenBudgetIsNegative_SkipsCheck() {
+        assertDoesNotThrow(() -> filter(Map.of("GET " + ENDPOINT_PATTERN, -1), true)
+                .doFilter(request(), new MockHttpServletResponse(), chain(50, false)));
+    }
+
+    @Test
+    void shape_CollapsesLiteralsAndPlaceholderLists() {
+        assertEquals("select * from houses where id in (?, ...) and owner_id=?",
+                SqlStatementCounter.shape("select *\n  from houses where id in (?, ?,?) and owner_id=42"));
+    }
+
+    private SqlStatementBudgetFilter filter(Map<String, Integer> endpoints, boolean failOnExceed) {
+        return new SqlStatementBudgetFilter(counter,
+                new SqlStatementBudgetProperties(10, endpoints, failOnExceed), meterRegistry);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/houses/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, ENDPOINT_PATTERN);
+        return request;
+    }
+
+    /**
+     * A handler issuing one statement per resident lookup, optionally writing a body that commits the response.
+     */
+    private MockFilterChain chain(int statements, boolean writeBody) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                for (int i = 0; i < statements; i++) {
+                    List<QueryInfo> queries = List.of(new QueryInfo("select * from house_residents where house_id=" + i));
+                    ExecutionInfo execution = new ExecutionInfo();
+                    counter.beforeQuery(execution, queries);
+                    counter.afterQuery(execution, queries);
+                }
+                if (writeBody) {
+                    response.getWriter().write("{}");
+                    response.flushBuffer();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.zuzex.crudapplication.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatchDtoValidationTest {
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void housePatch_WhenAddressIsBlank_IsRejected() {
+        assertEquals(List.of("Адрес не должен быть пустым"), messages(validator.validate(new HousePatchDto("   ", 0L))));
+        assertEquals(List.of("Адрес не должен быть пустым"), messages(validator.validate(new HousePatchDto("\n\t", 0L))));
+    }
+
+    @Test
+    void housePatch_WhenAddressIsLeftOutOrGiven_IsValid() {
+        assertTrue(validator.validate(new HousePatchDto(null, 0L)).isEmpty());
+        assertTrue(validator.validate(new HousePatchDto(" Lenina\n1 ", 0L)).isEmpty());
+    }
+
+    @Test
+    void userPatch_WhenNameOrPasswordIsBlank_IsRejected() {
+        assertEquals(List.of("Имя не должно быть пустым"),
+                messages(validator.validate(new UserPatchDto("   ", null, null, 0L))));
+        assertEquals(List.of("Пароль не должен быть пустым"),
+                messages(validator.validate(new UserPatchDto(null, null, "    ", 0L))));
+    }
+
+    @Test
+    void userPatch_WhenFieldsAreLeftOut_IsValid() {
+        assertTrue(validator.validate(new UserPatchDto(null, null, null, 0L)).isEmpty());
+        assertTrue(validator.validate(new UserPatchDto("alice", 30, "secret", 0L)).isEmpty());
+    }
+
+    private static <T> List<String> messages(Set<ConstraintViolation<T>> violations) {
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.zuzex.crudapplication.security.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+    private static final AuthenticatedUser ALICE = new AuthenticatedUser(1L, "alice", "hash");
+
+    private final PrincipalCache cache = new PrincipalCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch proceed = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_CachesLoadedPrincipal() {
+        assertSame(ALICE, cache.get("alice", name -> ALICE));
+
+        assertSame(ALICE, cache.find("alice"));
+    }
+
+    @Test
+    void get_WhenEvictedDuringLoad_DoesNotCacheStalePrincipal() throws Exception {
+        CompletableFuture<AuthenticatedUser> request = loadBlocking();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.evict("alice");
+        proceed.countDown();
+
+        assertSame(ALICE, request.get(5, TimeUnit.SECONDS));
+        assertNull(cache.find("alice"));
+    }
+
+    @Test
+    void get_WhenEvictedByIdDuringLoad_DoesNotCacheStalePrincipal() throws Exception {
+        CompletableFuture<AuthenticatedUser> request = loadBlocking();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.evictById(1L);
+        proceed.countDown();
+
+        request.get(5, TimeUnit.SECONDS);
+        assertNull(cache.find("alice"));
+    }
+
+    @Test
+    void get_WhenLoadReadBeforeCommitAndCachesAfterIt_DoesNotCacheStalePrincipal() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evict("alice");
+        // The request reads the row the transaction is about to delete
+        CompletableFuture<AuthenticatedUser> request = loadBlocking();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        proceed.countDown();
+
+        request.get(5, TimeUnit.SECONDS);
+        assertNull(cache.find("alice"));
+    }
+
+    @Test
+    void put_WhenLoadStartedAfterEviction_CachesPrincipal() {
+        cache.evict("alice");
+        long loadGeneration = cache.generation();
+
+        cache.put(ALICE, loadGeneration);
+
+        assertSame(ALICE, cache.find("alice"));
+    }
+
+    private CompletableFuture<AuthenticatedUser> loadBlocking() {
+        return CompletableFuture.supplyAsync(() -> cache.get("alice", name -> {
+            loading.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ALICE;
+        }));
+    }
+}
@@ -0,0 +1,107 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.repository.HouseRepository;
+import com.zuzex.crudapplication.repository.projection.HouseAddress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AddressSearchIndexTest {
+    @Mock
+    private HouseRepository houseRepository;
+
+    @InjectMocks
+    private AddressSearchIndex addressSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(houseRepository.streamAllAddresses()).thenReturn(Stream.of(
+                new HouseAddress(1L, "ул. Ленина, 10"),
+                new HouseAddress(2L, "ул. Ленина, 12"),
+                new HouseAddress(3L, "пр. Мира, 5"),
+                new HouseAddress(4L, "Ленинградский пр., 1")));
+        addressSearchIndex.build();
+    }
+
+    @Test
+    void search_RanksBestMatchesFirst() {
+        assertArrayEquals(new long[]{1L, 2L, 4L}, addressSearchIndex.search("ленина, 1", 10));
+    }
+
+    @Test
+    void search_IsCaseInsensitiveAndLimited() {
+        assertArrayEquals(new long[]{3L}, addressSearchIndex.search("МИРА", 10));
+        assertEquals(2, addressSearchIndex.search("Ленин", 2).length);
+    }
+
+    @Test
+    void search_ReflectsChanges() {
+        addressSearchIndex.addAfterCommit(5L, "пр. Мира, 7");
+        addressSearchIndex.replaceAfterCommit(3L, "пр. Мира, 5", "ул. Садовая, 5");
+        addressSearchIndex.removeAfterCommit(1L, "ул. Ленина, 10");
+
+        assertArrayEquals(new long[]{5L}, addressSearchIndex.search("Мира", 10));
+        assertArrayEquals(new long[]{3L}, addressSearchIndex.search("Садовая", 10));
+        assertArrayEquals(new long[]{2L, 4L}, addressSearchIndex.search("Ленин", 10));
+    }
+
+    @Test
+    void search_WhenNothingMatches_ReturnsEmpty() {
+        assertEquals(0, addressSearchIndex.search("Тверская", 10).length);
+    }
+
+    @Test
+    void build_AnswersAndTakesChangesWhileScanning() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        Iterator<HouseAddress> rows = List.of(
+                new HouseAddress(1L, "ул. Ленина, 10"),
+                new HouseAddress(6L, "ул. Тверская, 6"),
+                new HouseAddress(7L, "ул. Арбат, 7")).iterator();
+        when(houseRepository.streamAllAddresses()).thenReturn(Stream.generate(() -> {
+            HouseAddress row = rows.next();
+            if (row.id() == 6L) {
+                scanning.countDown();
+                await(proceed);
+            }
+            return row;
+        }).limit(3));
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(addressSearchIndex::build);
+        assertTrue(scanning.await(5, TimeUnit.SECONDS));
+
+        addressSearchIndex.addAfterCommit(8L, "ул. Тверская, 8");
+        addressSearchIndex.removeAfterCommit(7L, "ул. Арбат, 7");
+        assertArrayEquals(new long[]{3L}, addressSearchIndex.search("Мира", 10));
+        assertArrayEquals(new long[]{8L}, addressSearchIndex.search("Тверская", 10));
+        proceed.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0, addressSearchIndex.search("Мира", 10).length);
+        assertArrayEquals(new long[]{6L, 8L}, addressSearchIndex.search("Тверская", 10));
+        assertEquals(0, addressSearchIndex.search("Арбат", 10).length);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
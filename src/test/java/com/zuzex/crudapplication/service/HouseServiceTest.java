@@ -1,6 +1,9 @@
 package com.zuzex.crudapplication.service;
 
 
+import com.zuzex.crudapplication.dto.HouseBatchItemResultDto;
+import com.zuzex.crudapplication.dto.HousePageDto;
+import com.zuzex.crudapplication.dto.HousePatchDto;
 import com.zuzex.crudapplication.dto.HouseRequestDto;
 import com.zuzex.crudapplication.dto.HouseResponseDto;
 import com.zuzex.crudapplication.exception.HouseException;
@@ -10,19 +13,24 @@ import com.zuzex.crudapplication.model.House;
 import com.zuzex.crudapplication.model.User;
 import com.zuzex.crudapplication.repository.HouseRepository;
 import com.zuzex.crudapplication.repository.UserRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +43,15 @@ class HouseServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AddressSearchIndex addressSearchIndex;
+
+    @Mock
+    private EntityCacheEvictor entityCacheEvictor;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private HouseService houseService;
 
@@ -44,8 +61,8 @@ class HouseServiceTest {
 
     @BeforeEach
     void setUp() {
-        owner = new User(1L, "OwnerUser", 30, "password", new ArrayList<>(), new ArrayList<>());
-        resident = new User(2L, "ResidentUsername", 25, "residentPassword", new ArrayList<>(), new ArrayList<>());
+        owner = new User(1L, "OwnerUser", 30, "password", new ArrayList<>(), new ArrayList<>(), 0L);
+        resident = new User(2L, "ResidentUsername", 25, "residentPassword", new ArrayList<>(), new ArrayList<>(), 0L);
         house = House.builder().id(1L).address("123 Main St").owner(owner).residents(new ArrayList<>()).build();
     }
 
@@ -58,6 +75,64 @@ class HouseServiceTest {
         assertEquals(house.getId(), result.get(0).id());
     }
 
+    @Test
+    void searchHouses_ReturnsHousesInRankOrder() {
+        House second = House.builder().id(2L).address("124 Main St").owner(owner).build();
+        when(addressSearchIndex.search("Main", 10)).thenReturn(new long[]{2L, 1L});
+        when(houseRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(house, second));
+
+        List<HouseResponseDto> result = houseService.searchHouses(" Main ", 10);
+
+        assertEquals(List.of(2L, 1L), result.stream().map(HouseResponseDto::id).toList());
+    }
+
+    @Test
+    void searchHouses_WhenQueryIsTooShort_ThrowsException() {
+        assertThrows(HouseException.class, () -> houseService.searchHouses("ab", 10));
+        verifyNoInteractions(addressSearchIndex);
+    }
+
+    @Test
+    void findHousesPage_WhenMoreHousesExist_ReturnsNextCursor() {
+        House second = House.builder().id(2L).address("124 Main St").owner(owner).build();
+        when(houseRepository.findPageAfter(0L, null, null, Limit.of(2))).thenReturn(List.of(house, second));
+
+        HousePageDto page = houseService.findHousesPage(null, 1, null, null);
+
+        assertEquals(1, page.houses().size());
+        assertNotNull(page.nextCursor());
+
+        when(houseRepository.findPageAfter(1L, null, null, Limit.of(2))).thenReturn(List.of(second));
+        HousePageDto nextPage = houseService.findHousesPage(page.nextCursor(), 1, null, null);
+
+        assertEquals(second.getId(), nextPage.houses().get(0).id());
+        assertNull(nextPage.nextCursor());
+    }
+
+    @Test
+    void findHousesPage_EscapesAddressPrefix() {
+        when(houseRepository.findPageAfter(0L, 1L, "50\\%\\_off%", Limit.of(11))).thenReturn(List.of(house));
+
+        HousePageDto page = houseService.findHousesPage(null, 10, 1L, "50%_off");
+
+        assertEquals(1, page.houses().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void findHousesPage_MatchesAddressPrefixInAnyLetterCase() {
+        when(houseRepository.findPageAfter(0L, null, "123 main%", Limit.of(11))).thenReturn(List.of(house));
+
+        HousePageDto page = houseService.findHousesPage(null, 10, null, "123 MAIN");
+
+        assertEquals(1, page.houses().size());
+    }
+
+    @Test
+    void findHousesPage_WithInvalidCursor_ThrowsException() {
+        assertThrows(HouseException.class, () -> houseService.findHousesPage("not-a-cursor", 10, null, null));
+    }
+
     @Test
     void findHouseById_WhenHouseExists() {
         when(houseRepository.findById(1L)).thenReturn(Optional.of(house));
@@ -75,67 +150,153 @@ class HouseServiceTest {
     @Test
     void createHouse_WhenHouseDoesNotExist_CreatesHouse() {
         HouseRequestDto houseRequestDto = new HouseRequestDto("123 Main St");
-        when(userRepository.findByName("OwnerUser")).thenReturn(Optional.of(owner));
+        when(userRepository.getReferenceById(owner.getId())).thenReturn(owner);
         when(houseRepository.existsByAddress("123 Main St")).thenReturn(false);
         when(houseRepository.save(any(House.class))).thenReturn(house);
 
-        Authentication authentication = mock(Authentication.class);
-        SecurityContext securityContext = mock(SecurityContext.class);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        SecurityContextHolder.setContext(securityContext);
-        when(authentication.getName()).thenReturn("OwnerUser");
-
-        HouseResponseDto result = houseService.createHouse(houseRequestDto);
+        HouseResponseDto result = houseService.createHouse(houseRequestDto, owner.getId());
         assertNotNull(result);
         assertEquals(house.getAddress(), result.address());
-
-        SecurityContextHolder.clearContext();
+        verify(userRepository, never()).findByName(anyString());
+        verify(addressSearchIndex).addAfterCommit(house.getId(), house.getAddress());
     }
 
     @Test
     void createHouse_WhenHouseExists_ThrowsException() {
         HouseRequestDto houseRequestDto = new HouseRequestDto("123 Main St");
 
-        Authentication authentication = mock(Authentication.class);
-        when(authentication.getName()).thenReturn("OwnerUser");
+        when(houseRepository.existsByAddress(houseRequestDto.address())).thenReturn(true);
+        assertThrows(HouseException.class, () -> houseService.createHouse(houseRequestDto, owner.getId()));
+    }
 
-        SecurityContext securityContext = mock(SecurityContext.class);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        SecurityContextHolder.setContext(securityContext);
+    @Test
+    void createHouses_ReportsResultPerItem() {
+        List<HouseRequestDto> requests = List.of(
+                new HouseRequestDto("1 New St"),
+                new HouseRequestDto("123 Main St"),
+                new HouseRequestDto("1 NEW ST"),
+                new HouseRequestDto(""));
+        when(houseRepository.findExistingAddresses(Set.of("1 new st", "123 main st", "")))
+                .thenReturn(Set.of("123 main st"));
+        when(userRepository.getReferenceById(owner.getId())).thenReturn(owner);
+        when(houseRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<House> houses = invocation.getArgument(0);
+            houses.get(0).setId(10L);
+            return houses;
+        });
+
+        List<HouseBatchItemResultDto> results = houseService.createHouses(requests, owner.getId());
+
+        assertEquals(4, results.size());
+        assertEquals(10L, results.get(0).id());
+        assertNull(results.get(0).error());
+        assertNotNull(results.get(1).error());
+        assertNotNull(results.get(2).error());
+        assertNotNull(results.get(3).error());
+        verify(houseRepository).saveAll(argThat(houses -> ((List<House>) houses).size() == 1));
+    }
 
-        when(userRepository.findByName("OwnerUser")).thenReturn(Optional.of(owner));
-        when(houseRepository.existsByAddress(houseRequestDto.address())).thenReturn(true);
-        assertThrows(HouseException.class, () -> houseService.createHouse(houseRequestDto));
+    @Test
+    void createHouse_WhenAddressIsTakenConcurrently_ThrowsBadRequest() {
+        HouseRequestDto houseRequestDto = new HouseRequestDto("123 Main St");
+        when(userRepository.getReferenceById(owner.getId())).thenReturn(owner);
+        when(houseRepository.save(any(House.class))).thenReturn(house);
+        doThrow(new DataIntegrityViolationException("uq_houses_address_lower")).when(houseRepository).flush();
+
+        HouseException exception = assertThrows(HouseException.class,
+                () -> houseService.createHouse(houseRequestDto, owner.getId()));
 
-        SecurityContextHolder.clearContext();
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(addressSearchIndex);
+    }
+
+    @Test
+    void createHouses_WhenItemIsNull_ReportsItAndCreatesOthers() {
+        List<HouseRequestDto> requests = Arrays.asList(null, new HouseRequestDto("1 New St"));
+        when(houseRepository.findExistingAddresses(Set.of("1 new st"))).thenReturn(Set.of());
+        when(userRepository.getReferenceById(owner.getId())).thenReturn(owner);
+        when(houseRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<House> houses = invocation.getArgument(0);
+            houses.get(0).setId(10L);
+            return houses;
+        });
+
+        List<HouseBatchItemResultDto> results = houseService.createHouses(requests, owner.getId());
+
+        assertEquals(new HouseBatchItemResultDto(0, null, null, "Дом не задан"), results.get(0));
+        assertEquals(10L, results.get(1).id());
+    }
+
+    @Test
+    void createHouses_WhenAddressIsTakenConcurrently_ThrowsConflict() {
+        List<HouseRequestDto> requests = List.of(new HouseRequestDto("1 New St"));
+        when(houseRepository.findExistingAddresses(Set.of("1 new st"))).thenReturn(Set.of());
+        when(userRepository.getReferenceById(owner.getId())).thenReturn(owner);
+        when(houseRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new DataIntegrityViolationException("uq_houses_address_lower")).when(houseRepository).flush();
+
+        HouseException exception = assertThrows(HouseException.class,
+                () -> houseService.createHouses(requests, owner.getId()));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verifyNoInteractions(addressSearchIndex);
+    }
+
+    @Test
+    void createHouses_WhenBatchIsTooLarge_ThrowsException() {
+        List<HouseRequestDto> requests = java.util.Collections.nCopies(HouseService.MAX_BATCH_SIZE + 1,
+                new HouseRequestDto("1 New St"));
+
+        assertThrows(HouseException.class, () -> houseService.createHouses(requests, owner.getId()));
+        verify(houseRepository, never()).saveAll(anyList());
     }
 
     @Test
     void updateHouse_WhenOwnerUpdatesHouse() {
         HouseRequestDto houseRequestDto = new HouseRequestDto("New Address");
-        mockAuthentication(owner.getUsername());
 
-        when(userRepository.findByName(owner.getUsername())).thenReturn(Optional.of(owner));
         when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(houseRepository.save(any(House.class))).thenReturn(house);
+        when(houseRepository.saveAndFlush(any(House.class))).thenReturn(house);
 
-        HouseResponseDto updatedHouse = houseService.updateHouse(house.getId(), houseRequestDto, owner.getUsername());
+        HouseResponseDto updatedHouse = houseService.updateHouse(house.getId(), houseRequestDto, owner.getId(), null);
 
         assertEquals("New Address", updatedHouse.address());
-        verify(houseRepository).save(house);
+        verify(houseRepository).saveAndFlush(house);
+        verify(userRepository, never()).findByName(anyString());
+    }
+
+
+    @Test
+    void updateHouse_WhenAddressTakenByAnotherHouse_ThrowsException() {
+        HouseRequestDto houseRequestDto = new HouseRequestDto("Taken Address");
+
+        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
+        when(houseRepository.existsByAddress("Taken Address")).thenReturn(true);
+
+        assertThrows(HouseException.class, () -> houseService.updateHouse(house.getId(), houseRequestDto, owner.getId(), null));
+        verify(houseRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateHouse_WhenVersionDiffersFromExpected_ThrowsPreconditionFailed() {
+        house.setVersion(3L);
+        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
+
+        HouseException exception = assertThrows(HouseException.class, () -> houseService.updateHouse(house.getId(),
+                new HouseRequestDto("New Address"), owner.getId(), 2L));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatus());
+        verify(houseRepository, never()).saveAndFlush(any());
     }
 
 
     @Test
     void updateHouse_WhenNonOwnerTriesToUpdateHouse_ThrowsException() {
         HouseRequestDto houseRequestDto = new HouseRequestDto("New Address");
-        String nonOwnerUsername = "nonOwnerUser";
-        mockAuthentication(nonOwnerUsername);
 
-        when(userRepository.findByName(nonOwnerUsername)).thenReturn(Optional.of(new User()));
         when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
 
-        assertThrows(OwnerException.class, () -> houseService.updateHouse(house.getId(), houseRequestDto, nonOwnerUsername));
+        assertThrows(OwnerException.class, () -> houseService.updateHouse(house.getId(), houseRequestDto, resident.getId(), null));
     }
 
 
@@ -144,22 +305,57 @@ class HouseServiceTest {
         List<User> residents = List.of(resident);
         house.setResidents(residents);
         when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findByName(owner.getUsername())).thenReturn(Optional.of(owner));
 
-        houseService.deleteHouse(house.getId(), owner.getUsername());
+        houseService.deleteHouse(house.getId(), owner.getId());
 
         verify(houseRepository).delete(house);
         verify(userRepository).saveAll(residents);
     }
 
 
+    @Test
+    void patchHouse_WhenVersionMatches_ReplacesIndexedAddressAndReturnsNextVersion() {
+        HousePatchDto patch = new HousePatchDto("New Address", 4L);
+        when(houseRepository.findAddressByIdAndVersion(house.getId(), 4L)).thenReturn(Optional.of("123 Main St"));
+        when(houseRepository.patch(house.getId(), 4L, owner.getId(), "New Address")).thenReturn(1);
+
+        assertEquals(5L, houseService.patchHouse(house.getId(), patch, owner.getId()));
+
+        verify(addressSearchIndex).replaceAfterCommit(house.getId(), "123 Main St", "New Address");
+        verify(houseRepository, never()).findById(any());
+    }
+
+    @Test
+    void patchHouse_WhenVersionIsStale_ThrowsConflict() {
+        HousePatchDto patch = new HousePatchDto("New Address", 4L);
+        when(houseRepository.patch(house.getId(), 4L, owner.getId(), "New Address")).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(true);
+        when(houseRepository.existsByIdAndOwnerId(house.getId(), owner.getId())).thenReturn(true);
+
+        HouseException exception = assertThrows(HouseException.class,
+                () -> houseService.patchHouse(house.getId(), patch, owner.getId()));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verifyNoInteractions(addressSearchIndex);
+    }
+
+    @Test
+    void patchHouse_WhenNotOwner_ThrowsForbidden() {
+        HousePatchDto patch = new HousePatchDto(null, 4L);
+        when(houseRepository.patch(house.getId(), 4L, resident.getId(), null)).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(true);
+        when(houseRepository.existsByIdAndOwnerId(house.getId(), resident.getId())).thenReturn(false);
+
+        assertThrows(OwnerException.class, () -> houseService.patchHouse(house.getId(), patch, resident.getId()));
+        verify(houseRepository, never()).findAddressByIdAndVersion(any(), any());
+    }
+
     @Test
     void deleteHouse_WhenOwnerDeletesHouseWithoutResidents() {
         house.setResidents(new ArrayList<>());
         when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findByName(owner.getUsername())).thenReturn(Optional.of(owner));
 
-        houseService.deleteHouse(house.getId(), owner.getUsername());
+        houseService.deleteHouse(house.getId(), owner.getId());
 
         verify(houseRepository).delete(house);
         verify(userRepository, times(0)).saveAll(anyList());
@@ -168,123 +364,117 @@ class HouseServiceTest {
 
     @Test
     void deleteHouse_WhenNonOwnerTriesToDeleteHouse_ThrowsException() {
-        String nonOwnerUsername = "nonOwnerUser";
-        mockAuthentication(nonOwnerUsername);
-
         when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findByName(nonOwnerUsername)).thenReturn(Optional.of(new User()));
 
-        assertThrows(OwnerException.class, () -> houseService.deleteHouse(house.getId(), nonOwnerUsername));
+        assertThrows(OwnerException.class, () -> houseService.deleteHouse(house.getId(), resident.getId()));
     }
 
     @Test
     void addResidentToHouse_Successful() {
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findById(resident.getId())).thenReturn(Optional.of(resident));
+        when(houseRepository.addResident(house.getId(), resident.getId(), owner.getId())).thenReturn(1);
 
-        assertDoesNotThrow(() -> houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getUsername()));
+        assertDoesNotThrow(() -> houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId()));
 
-        assertTrue(house.getResidents().contains(resident));
-        verify(houseRepository).save(house);
+        verify(houseRepository).addResident(house.getId(), resident.getId(), owner.getId());
+        verify(houseRepository, never()).save(any());
     }
 
     @Test
     void addResidentToHouse_ResidentAlreadyExists_ThrowsException() {
-        mockAuthentication(owner.getUsername());
-        house.getResidents().add(resident);
+        when(houseRepository.addResident(house.getId(), resident.getId(), owner.getId())).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(true);
+        when(userRepository.existsById(resident.getId())).thenReturn(true);
+        when(houseRepository.existsByIdAndOwnerId(house.getId(), owner.getId())).thenReturn(true);
 
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findById(resident.getId())).thenReturn(Optional.of(resident));
-
-        ResidentException exception = assertThrows(ResidentException.class, () -> houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getUsername()));
+        ResidentException exception = assertThrows(ResidentException.class, () -> houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId()));
         assertEquals("Жилец уже зарегистрирован в этом доме", exception.getMessage());
     }
 
+    @Test
+    void addResidentToHouse_HouseNotFound_ThrowsException() {
+        when(houseRepository.addResident(house.getId(), resident.getId(), owner.getId())).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(false);
+
+        HouseException exception = assertThrows(HouseException.class,
+                () -> houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId()));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
 
     @Test
-    void removeResidentFromHouse_Successful() {
-        house.getResidents().add(resident);
+    void addResidentToHouse_ResidentNotFound_ThrowsException() {
+        when(houseRepository.addResident(house.getId(), resident.getId(), owner.getId())).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(true);
+        when(userRepository.existsById(resident.getId())).thenReturn(false);
+
+        ResidentException exception = assertThrows(ResidentException.class,
+                () -> houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId()));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
 
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findById(resident.getId())).thenReturn(Optional.of(resident));
+
+    @Test
+    void removeResidentFromHouse_Successful() {
+        when(houseRepository.removeResident(house.getId(), resident.getId(), owner.getId())).thenReturn(1);
 
         assertDoesNotThrow(() -> houseService.removeResidentFromHouse(
-                house.getId(), resident.getId(), owner.getUsername()));
+                house.getId(), resident.getId(), owner.getId()));
 
-        assertFalse(house.getResidents().contains(resident));
-        verify(houseRepository).save(house);
+        verify(houseRepository).removeResident(house.getId(), resident.getId(), owner.getId());
+        verify(houseRepository, never()).save(any());
     }
 
     @Test
     void removeResidentFromHouse_ResidentNotPresent_ThrowsException() {
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findById(resident.getId())).thenReturn(Optional.of(resident));
-
-        assertThrows(ResidentException.class,
-                () -> houseService.removeResidentFromHouse(house.getId(), resident.getId(), owner.getUsername()));
+        when(houseRepository.removeResident(house.getId(), resident.getId(), owner.getId())).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(true);
+        when(userRepository.existsById(resident.getId())).thenReturn(true);
+        when(houseRepository.existsByIdAndOwnerId(house.getId(), owner.getId())).thenReturn(true);
+
+        ResidentException exception = assertThrows(ResidentException.class,
+                () -> houseService.removeResidentFromHouse(house.getId(), resident.getId(), owner.getId()));
+        assertEquals("Жилец не зарегистрирован в этом доме", exception.getMessage());
     }
 
 
     @Test
     void addResidentToHouse_Successful_IfOwner() {
-        mockAuthentication(owner.getUsername());
+        when(houseRepository.addResident(house.getId(), resident.getId(), owner.getId())).thenReturn(1);
 
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findById(resident.getId())).thenReturn(Optional.of(resident));
-
-        houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getUsername());
-        assertTrue(house.getResidents().contains(resident));
-        verify(houseRepository).save(house);
+        houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId());
+        verify(houseRepository).addResident(house.getId(), resident.getId(), owner.getId());
     }
 
 
     @Test
     void addResidentToHouse_Fails_IfNotOwner() {
-        String notOwnerUsername = "notOwnerUsername";
-        mockAuthentication(notOwnerUsername);
-        lenient().when(userRepository.findByName(notOwnerUsername)).thenReturn(Optional.of(new User()));
-        assertThrows(HouseException.class,
-                () -> houseService.addResidentToHouse(house.getId(), resident.getId(), notOwnerUsername));
-
+        when(houseRepository.addResident(house.getId(), resident.getId(), resident.getId())).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(true);
+        when(userRepository.existsById(resident.getId())).thenReturn(true);
+        when(houseRepository.existsByIdAndOwnerId(house.getId(), resident.getId())).thenReturn(false);
+
+        HouseException exception = assertThrows(HouseException.class,
+                () -> houseService.addResidentToHouse(house.getId(), resident.getId(), resident.getId()));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
     }
 
-
     @Test
     void removeResidentFromHouse_Successful_IfOwner() {
-        mockAuthentication(owner.getUsername());
-        house.getResidents().add(resident);
+        when(houseRepository.removeResident(house.getId(), resident.getId(), owner.getId())).thenReturn(1);
 
-        when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        when(userRepository.findById(resident.getId())).thenReturn(Optional.of(resident));
-
-        assertDoesNotThrow(() -> houseService.removeResidentFromHouse(house.getId(), resident.getId(), owner.getUsername()));
-        assertFalse(house.getResidents().contains(resident));
+        assertDoesNotThrow(() -> houseService.removeResidentFromHouse(house.getId(), resident.getId(), owner.getId()));
+        verify(houseRepository).removeResident(house.getId(), resident.getId(), owner.getId());
     }
 
     @Test
     void removeResidentFromHouse_Fails_IfNotOwner() {
-        String notOwnerUsername = "notOwnerUsername";
-        mockAuthentication(notOwnerUsername);
-        house.getResidents().add(resident);
-
-
-        lenient().when(houseRepository.findById(house.getId())).thenReturn(Optional.of(house));
-        lenient().when(userRepository.findById(resident.getId())).thenReturn(Optional.of(resident));
-        lenient().when(userRepository.findByName(notOwnerUsername)).thenReturn(Optional.of(new User()));
-
-        assertThrows(HouseException.class,
-                () -> houseService.removeResidentFromHouse(house.getId(), resident.getId(), notOwnerUsername));
-    }
-
-
-    private void mockAuthentication(String username) {
-        Authentication authentication = mock(Authentication.class);
-        lenient().when(authentication.getName()).thenReturn(username);
-
-        SecurityContext securityContext = mock(SecurityContext.class);
-        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
-
-        SecurityContextHolder.setContext(securityContext);
+        when(houseRepository.removeResident(house.getId(), resident.getId(), resident.getId())).thenReturn(0);
+        when(houseRepository.existsById(house.getId())).thenReturn(true);
+        when(userRepository.existsById(resident.getId())).thenReturn(true);
+        when(houseRepository.existsByIdAndOwnerId(house.getId(), resident.getId())).thenReturn(false);
+
+        HouseException exception = assertThrows(HouseException.class,
+                () -> houseService.removeResidentFromHouse(house.getId(), resident.getId(), resident.getId()));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.config.ReplicaRoutingConfig;
+import com.zuzex.crudapplication.dto.HouseRequestDto;
+import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.model.User;
+import com.zuzex.crudapplication.repository.UserRepository;
+import com.zuzex.crudapplication.security.config.AuthenticatedUser;
+import com.zuzex.crudapplication.security.config.PrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The replica is a second pool on the same in-memory database, so the routing is observed
+ * through the connections each pool hands out.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "application.datasource.replicas.enabled=true",
+        "application.datasource.replicas.urls[0]=jdbc:h2:mem:replica-routing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "application.datasource.replicas.health-check-interval=0s"})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({HouseService.class, EntityCacheEvictor.class, ReplicaRoutingConfig.class, BCryptPasswordEncoder.class,
+        SimpleMeterRegistry.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+class ReplicaRoutingTest {
+    @Autowired
+    private HouseService houseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @MockBean
+    private AddressSearchIndex addressSearchIndex;
+
+    private User owner;
+    private Long houseId;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder().name("Owner").age(30).password("password").build());
+        houseId = houseService.createHouse(new HouseRequestDto("Replicated street 1"), owner.getId()).id();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM houses");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void findHouseById_ReadsFromReplica() {
+        double primaryBefore = acquisitions("primary");
+        double replicaBefore = acquisitions("replica-0");
+
+        HouseResponseDto house = houseService.findHouseById(houseId);
+
+        assertEquals("Replicated street 1", house.address());
+        assertEquals(replicaBefore + 1, acquisitions("replica-0"));
+        assertEquals(primaryBefore, acquisitions("primary"));
+    }
+
+    @Test
+    void createHouse_WritesToPrimary() {
+        double replicaBefore = acquisitions("replica-0");
+
+        houseService.createHouse(new HouseRequestDto("Replicated street 2"), owner.getId());
+
+        assertEquals(replicaBefore, acquisitions("replica-0"));
+    }
+
+    @Test
+    void findHouseById_AfterOwnWrite_ReadsFromPrimary() {
+        authenticate(owner);
+        Long newHouseId = houseService.createHouse(new HouseRequestDto("Replicated street 3"), owner.getId()).id();
+        double replicaBefore = acquisitions("replica-0");
+
+        houseService.findHouseById(newHouseId);
+
+        assertEquals(replicaBefore, acquisitions("replica-0"));
+    }
+
+    /**
+     * A pool registers its meters when it hands out its first connection.
+     */
+    private double acquisitions(String pool) {
+        Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private static void authenticate(User user) {
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,161 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.dto.ResidentImportRejectedRowDto;
+import com.zuzex.crudapplication.dto.ResidentImportSummaryDto;
+import com.zuzex.crudapplication.model.House;
+import com.zuzex.crudapplication.model.User;
+import com.zuzex.crudapplication.repository.HouseRepository;
+import com.zuzex.crudapplication.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ResidentImportService.class, EntityCacheEvictor.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ResidentImportServiceTest {
+    @Autowired
+    private ResidentImportService residentImportService;
+
+    @Autowired
+    private HouseRepository houseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private User owner;
+    private House house;
+    private House foreignHouse;
+    private User resident;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        owner = userRepository.save(User.builder().name("Owner").age(30).password("password").build());
+        User stranger = userRepository.save(User.builder().name("Stranger").age(31).password("password").build());
+        resident = userRepository.save(User.builder().name("Resident").age(20).password("password").build());
+        house = houseRepository.save(House.builder().address("Own address").owner(owner).build());
+        foreignHouse = houseRepository.save(House.builder().address("Foreign address").owner(stranger).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void importResidents_Csv_ImportsValidRowsAndReportsRejected() {
+        String csv = "houseId,residentId\n"
+                + house.getId() + "," + resident.getId() + "\n"
+                + house.getId() + "," + resident.getId() + "\n"
+                + "not,a number\n"
+                + "\n"
+                + foreignHouse.getId() + "," + resident.getId() + "\n"
+                + house.getId() + ",999999\n"
+                + "999999," + resident.getId() + "\n";
+
+        ResidentImportSummaryDto summary = residentImportService.importResidents(stream(csv),
+                ResidentImportService.Format.CSV, owner.getId());
+
+        assertEquals(6, summary.totalRows());
+        assertEquals(2, summary.importedRows());
+        assertEquals(4, summary.rejectedRows());
+        assertEquals(List.of(4L, 6L, 7L, 8L), summary.rejections().stream()
+                .map(ResidentImportRejectedRowDto::line)
+                .toList());
+        assertEquals("Жилец не найден: 999999", summary.rejections().get(2).error());
+        assertEquals(1, houseRepository.findResidentLinks(List.of(house.getId())).size());
+        assertEquals(0, houseRepository.findResidentLinks(List.of(foreignHouse.getId())).size());
+    }
+
+    @Test
+    void importResidents_Csv_SkipsQuotedHeaderAfterByteOrderMark() {
+        String csv = "\uFEFF\"houseId\", \"residentId\"\n"
+                + "\"" + house.getId() + "\",\"" + resident.getId() + "\"\n";
+
+        ResidentImportSummaryDto summary = residentImportService.importResidents(stream(csv),
+                ResidentImportService.Format.CSV, owner.getId());
+
+        assertEquals(1, summary.totalRows());
+        assertEquals(1, summary.importedRows());
+        assertEquals(1, houseRepository.findResidentLinks(List.of(house.getId())).size());
+    }
+
+    @Test
+    void importResidents_Csv_TreatsFirstLineOtherThanHeaderAsRow() {
+        String csv = "\uFEFF+" + house.getId() + "," + resident.getId() + "\n";
+        String malformed = "house;resident\n" + house.getId() + "," + resident.getId() + "\n";
+
+        ResidentImportSummaryDto imported = residentImportService.importResidents(stream(csv),
+                ResidentImportService.Format.CSV, owner.getId());
+        ResidentImportSummaryDto rejected = residentImportService.importResidents(stream(malformed),
+                ResidentImportService.Format.CSV, owner.getId());
+
+        assertEquals(1, imported.importedRows());
+        assertEquals(2, rejected.totalRows());
+        assertEquals(1, rejected.rejectedRows());
+        assertEquals(new ResidentImportRejectedRowDto(1, "house;resident", "Некорректный формат строки"),
+                rejected.rejections().get(0));
+    }
+
+    @Test
+    void importResidents_Ndjson_ImportsValidRows() {
+        String ndjson = "{\"houseId\":" + house.getId() + ",\"residentId\":" + resident.getId() + "}\n"
+                + "{\"houseId\":\"x\"}\n";
+
+        ResidentImportSummaryDto summary = residentImportService.importResidents(stream(ndjson),
+                ResidentImportService.Format.NDJSON, owner.getId());
+
+        assertEquals(1, summary.importedRows());
+        assertEquals(1, summary.rejectedRows());
+        assertEquals(1, houseRepository.findResidentLinks(List.of(house.getId())).size());
+    }
+
+    @Test
+    void importResidents_ChecksOwnershipOncePerHouseAndResidentsPerChunk() {
+        int residentCount = ResidentImportService.CHUNK_SIZE * 2 + 1;
+        List<User> residents = new ArrayList<>();
+        for (int i = 0; i < residentCount; i++) {
+            residents.add(User.builder().name("Tenant" + i).age(20).password("password").build());
+        }
+        StringBuilder csv = new StringBuilder();
+        for (User tenant : userRepository.saveAll(residents)) {
+            csv.append(house.getId()).append(',').append(tenant.getId()).append('\n');
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        ResidentImportSummaryDto summary = residentImportService.importResidents(stream(csv.toString()),
+                ResidentImportService.Format.CSV, owner.getId());
+
+        assertEquals(residentCount, summary.importedRows());
+        // One ownership lookup, then per chunk the resident lookup and the house and user version increments
+        assertEquals(1 + 3 * 3, statistics.getPrepareStatementCount());
+        assertEquals(residentCount, houseRepository.findResidentLinks(List.of(house.getId())).size());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,226 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.config.SecondLevelCacheConfig;
+import com.zuzex.crudapplication.dto.HousePatchDto;
+import com.zuzex.crudapplication.dto.HouseRequestDto;
+import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.dto.UserPatchDto;
+import com.zuzex.crudapplication.dto.UserRequestDto;
+import com.zuzex.crudapplication.model.House;
+import com.zuzex.crudapplication.model.User;
+import com.zuzex.crudapplication.repository.HouseRepository;
+import com.zuzex.crudapplication.repository.UserRepository;
+import com.zuzex.crudapplication.security.config.PrincipalCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every write goes through the services in its own committed transaction, and every read must
+ * see it although the entities and collections read before are held in the second-level cache.
+ */
+@DataJpaTest(properties = "application.second-level-cache.enabled=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({HouseService.class, UserService.class, ResidentImportService.class, EntityCacheEvictor.class,
+        SecondLevelCacheConfig.class, BCryptPasswordEncoder.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+class SecondLevelCacheTest {
+    @Autowired
+    private HouseService houseService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ResidentImportService residentImportService;
+
+    @Autowired
+    private HouseRepository houseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @MockBean
+    private AddressSearchIndex addressSearchIndex;
+
+    private Statistics statistics;
+    private User owner;
+    private User resident;
+    private House house;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = userRepository.save(User.builder().name("Owner").age(30).password("password").build());
+        resident = userRepository.save(User.builder().name("Resident").age(20).password("password").build());
+        house = houseRepository.save(House.builder().address("Cached address").owner(owner).build());
+        warmUp();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM house_residents");
+        jdbcTemplate.update("DELETE FROM houses");
+        jdbcTemplate.update("DELETE FROM users");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAll();
+    }
+
+    @Test
+    void findHouseById_WhenCached_HitsSecondLevelCache() {
+        statistics.clear();
+
+        houseService.findHouseById(house.getId());
+
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void createHouse_IsVisibleInOwnersHouses() {
+        HouseResponseDto created = houseService.createHouse(new HouseRequestDto("New address"), owner.getId());
+
+        assertEquals(List.of(house.getId(), created.id()), userService.getUserById(owner.getId()).ownedHouseIds());
+    }
+
+    @Test
+    void updateHouse_IsVisibleInFindById() {
+        houseService.updateHouse(house.getId(), new HouseRequestDto("Updated address"), owner.getId(), null);
+
+        assertEquals("Updated address", houseService.findHouseById(house.getId()).address());
+    }
+
+    @Test
+    void addAndRemoveResident_AreVisibleOnBothSides() {
+        houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId());
+
+        assertEquals(List.of(resident.getId()), houseService.findHouseById(house.getId()).residentIds());
+        assertEquals(List.of(house.getId()), userService.getUserById(resident.getId()).residenceIds());
+
+        houseService.removeResidentFromHouse(house.getId(), resident.getId(), owner.getId());
+
+        assertEquals(List.of(), houseService.findHouseById(house.getId()).residentIds());
+        assertEquals(List.of(), userService.getUserById(resident.getId()).residenceIds());
+    }
+
+    @Test
+    void addResident_IncrementsVersionsAndKeepsUnrelatedEntriesCached() {
+        User neighbour = userRepository.save(User.builder().name("Neighbour").age(40).password("password").build());
+        House neighbourHouse = houseRepository.save(House.builder().address("Other address").owner(neighbour).build());
+        houseService.findHouseById(neighbourHouse.getId());
+        userService.getUserById(neighbour.getId());
+        long houseVersion = houseService.findHouseById(house.getId()).version();
+        long residentVersion = userService.getUserById(resident.getId()).version();
+
+        houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId());
+
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertTrue(cache.containsEntity(House.class, neighbourHouse.getId()));
+        assertTrue(cache.containsEntity(User.class, neighbour.getId()));
+        assertTrue(cache.containsEntity(User.class, owner.getId()));
+        assertTrue(cache.containsCollection(User.class.getName() + ".ownedHouses", neighbour.getId()));
+        assertTrue(cache.containsCollection(House.class.getName() + ".residents", neighbourHouse.getId()));
+        assertEquals(houseVersion + 1, houseService.findHouseById(house.getId()).version());
+        assertEquals(residentVersion + 1, userService.getUserById(resident.getId()).version());
+    }
+
+    @Test
+    void deleteHouse_IsVisibleOnOwnerAndResidents() {
+        houseService.addResidentToHouse(house.getId(), resident.getId(), owner.getId());
+        warmUp();
+
+        houseService.deleteHouse(house.getId(), owner.getId());
+
+        assertEquals(List.of(), userService.getUserById(owner.getId()).ownedHouseIds());
+        assertEquals(List.of(), userService.getUserById(resident.getId()).residenceIds());
+    }
+
+    @Test
+    void updateUser_IsVisibleInFindByName() {
+        userService.updateUser(resident.getId(), new UserRequestDto("Renamed", 21, null), null);
+
+        assertTrue(userRepository.findByName("Resident").isEmpty());
+        assertEquals(21, userRepository.findByName("Renamed").orElseThrow().getAge());
+        assertEquals("Renamed", userService.getUserById(resident.getId()).name());
+    }
+
+    @Test
+    void patchUser_IsVisibleInFindByNameAndKeepsOtherUsersCached() {
+        userService.patchUser(resident.getId(), new UserPatchDto("Renamed", null, null, resident.getVersion()));
+
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertTrue(cache.containsEntity(User.class, owner.getId()));
+        assertTrue(cache.containsCollection(User.class.getName() + ".ownedHouses", owner.getId()));
+        assertTrue(userRepository.findByName("Resident").isEmpty());
+        assertEquals(resident.getId(), userRepository.findByName("Renamed").orElseThrow().getId());
+        assertEquals("Renamed", userService.getUserById(resident.getId()).name());
+    }
+
+    @Test
+    void patchHouse_IsVisibleInFindByIdAndKeepsOtherEntriesCached() {
+        Long version = houseService.patchHouse(house.getId(),
+                new HousePatchDto("Patched address", house.getVersion()), owner.getId());
+
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertTrue(cache.containsEntity(User.class, owner.getId()));
+        assertTrue(cache.containsCollection(House.class.getName() + ".residents", house.getId()));
+        HouseResponseDto patched = houseService.findHouseById(house.getId());
+        assertEquals("Patched address", patched.address());
+        assertEquals(version, patched.version());
+    }
+
+    @Test
+    void importResidents_IsVisibleOnBothSides() {
+        String csv = house.getId() + "," + resident.getId() + "\n";
+
+        residentImportService.importResidents(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                ResidentImportService.Format.CSV, owner.getId());
+
+        assertEquals(List.of(resident.getId()), houseService.findHouseById(house.getId()).residentIds());
+        assertEquals(List.of(house.getId()), userService.getUserById(resident.getId()).residenceIds());
+    }
+
+    /**
+     * Puts the house, both users, their collections and the name lookup into the cache.
+     */
+    private void warmUp() {
+        houseService.findHouseById(house.getId());
+        userService.getUserById(owner.getId());
+        userService.getUserById(resident.getId());
+        userRepository.findByName("Resident");
+    }
+}
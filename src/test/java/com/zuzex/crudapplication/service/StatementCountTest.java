@@ -0,0 +1,275 @@
+package com.zuzex.crudapplication.service;
+
+import com.zuzex.crudapplication.dto.HouseBatchItemResultDto;
+import com.zuzex.crudapplication.dto.HousePatchDto;
+import com.zuzex.crudapplication.dto.HouseRequestDto;
+import com.zuzex.crudapplication.dto.HouseResponseDto;
+import com.zuzex.crudapplication.dto.UserPatchDto;
+import com.zuzex.crudapplication.dto.UserResponseDto;
+import com.zuzex.crudapplication.exception.HouseException;
+import com.zuzex.crudapplication.model.House;
+import com.zuzex.crudapplication.model.User;
+import com.zuzex.crudapplication.repository.HouseRepository;
+import com.zuzex.crudapplication.repository.UserRepository;
+import com.zuzex.crudapplication.security.config.PrincipalCache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({HouseService.class, UserService.class, EntityCacheEvictor.class, BCryptPasswordEncoder.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+class StatementCountTest {
+    @Autowired
+    private HouseService houseService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private HouseRepository houseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private PrincipalCache principalCache;
+
+    @MockBean
+    private AddressSearchIndex addressSearchIndex;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void findAllHouses_IssuesConstantNumberOfStatements(int houseCount) {
+        seedHouses(houseCount);
+
+        List<HouseResponseDto> houses = houseService.findAllHouses();
+
+        assertEquals(houseCount, houses.size());
+        assertEquals(2, houses.get(0).residentIds().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void findHousesPage_IssuesConstantNumberOfStatements(int houseCount) {
+        seedHouses(houseCount);
+
+        List<HouseResponseDto> houses = houseService.findHousesPage(null, 100, null, null).houses();
+
+        assertEquals(houseCount, houses.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void findAllUsers_IssuesConstantNumberOfStatements(int houseCount) {
+        seedHouses(houseCount);
+
+        List<UserResponseDto> users = userService.findAllUsers();
+
+        assertEquals(houseCount + 2, users.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 499, 1001})
+    void exportHouses_IssuesOneStatementPerChunk(int houseCount) {
+        seedHouses(houseCount);
+        List<HouseResponseDto> exported = new ArrayList<>();
+
+        houseService.exportHouses(exported::addAll);
+
+        int chunks = (houseCount + HouseRepository.EXPORT_FETCH_SIZE - 1) / HouseRepository.EXPORT_FETCH_SIZE;
+        assertEquals(houseCount, exported.size());
+        assertEquals(2, exported.get(houseCount - 1).residentIds().size());
+        assertEquals(1 + chunks, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 499, 1001})
+    void exportUsers_IssuesTwoStatementsPerChunk(int houseCount) {
+        seedHouses(houseCount);
+        List<UserResponseDto> exported = new ArrayList<>();
+
+        userService.exportUsers(exported::addAll);
+
+        int userCount = houseCount + 2;
+        int chunks = (userCount + UserRepository.EXPORT_FETCH_SIZE - 1) / UserRepository.EXPORT_FETCH_SIZE;
+        assertEquals(userCount, exported.size());
+        assertEquals(1 + 2 * chunks, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 120})
+    void createHouses_InsertsInJdbcBatches(int houseCount) {
+        User owner = userRepository.save(User.builder().name("Owner").age(30).password("password").build());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        List<HouseRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < houseCount; i++) {
+            requests.add(new HouseRequestDto("Batch address " + i));
+        }
+
+        List<HouseBatchItemResultDto> results = houseService.createHouses(requests, owner.getId());
+        entityManager.flush();
+
+        int batches = (houseCount + 49) / 50;
+        assertTrue(results.stream().allMatch(result -> result.id() != null));
+        assertEquals(houseCount, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 1 + 2 * batches,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 300})
+    void addResidentToHouse_IssuesConstantNumberOfStatementsAndIncrementsVersions(int residentCount) {
+        House house = seedHouseWithResidents(residentCount);
+        User newcomer = userRepository.save(User.builder().name("Newcomer").age(40).password("password").build());
+        entityManager.flush();
+        statistics.clear();
+
+        houseService.addResidentToHouse(house.getId(), newcomer.getId(), house.getOwner().getId());
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(residentCount + 1, houseRepository.findResidentLinks(List.of(house.getId())).size());
+        assertEquals(1L, houseService.findHouseVersion(house.getId()));
+        assertEquals(1L, userService.findUserVersion(newcomer.getId()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 300})
+    void removeResidentFromHouse_IssuesConstantNumberOfStatementsAndIncrementsVersions(int residentCount) {
+        House house = seedHouseWithResidents(residentCount);
+        Long residentId = house.getResidents().get(0).getId();
+        statistics.clear();
+
+        houseService.removeResidentFromHouse(house.getId(), residentId, house.getOwner().getId());
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(residentCount - 1, houseRepository.findResidentLinks(List.of(house.getId())).size());
+        assertEquals(1L, houseService.findHouseVersion(house.getId()));
+        assertEquals(1L, userService.findUserVersion(residentId));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 300})
+    void findHouseVersion_IssuesOneStatementWithoutLoadingResidents(int residentCount) {
+        House house = seedHouseWithResidents(residentCount);
+        statistics.clear();
+
+        assertEquals(0L, houseService.findHouseVersion(house.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 300})
+    void patchHouse_IssuesAddressLookupAndOneUpdate(int residentCount) {
+        House house = seedHouseWithResidents(residentCount);
+        statistics.clear();
+
+        Long version = houseService.patchHouse(house.getId(), new HousePatchDto("Patched address", 0L),
+                house.getOwner().getId());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1L, version);
+        assertEquals("Patched address", houseService.findHouseById(house.getId()).address());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 300})
+    void patchUser_IssuesOneUpdate(int residentCount) {
+        User resident = seedHouseWithResidents(residentCount).getResidents().get(0);
+        statistics.clear();
+
+        Long version = userService.patchUser(resident.getId(), new UserPatchDto(null, 55, null, 0L));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1L, version);
+        assertEquals(55, userService.getUserById(resident.getId()).age());
+    }
+
+    @Test
+    void patchHouse_WhenVersionIsStale_KeepsConcurrentEdit() {
+        House house = seedHouseWithResidents(3);
+        Long ownerId = house.getOwner().getId();
+        houseService.patchHouse(house.getId(), new HousePatchDto("First edit", 0L), ownerId);
+
+        HouseException exception = assertThrows(HouseException.class,
+                () -> houseService.patchHouse(house.getId(), new HousePatchDto("Second edit", 0L), ownerId));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals("First edit", houseService.findHouseById(house.getId()).address());
+    }
+
+    private House seedHouseWithResidents(int residentCount) {
+        User owner = userRepository.save(User.builder().name("Owner").age(30).password("password").build());
+        List<User> residents = new ArrayList<>();
+        for (int i = 0; i < residentCount; i++) {
+            residents.add(User.builder().name("Resident" + i).age(20).password("password").build());
+        }
+        House house = houseRepository.save(House.builder()
+                .address("Address")
+                .owner(owner)
+                .residents(userRepository.saveAll(residents))
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        return house;
+    }
+
+    private void seedHouses(int houseCount) {
+        List<User> residents = userRepository.saveAll(List.of(
+                User.builder().name("Resident1").age(20).password("password").build(),
+                User.builder().name("Resident2").age(21).password("password").build()));
+        List<House> houses = new ArrayList<>();
+        for (int i = 0; i < houseCount; i++) {
+            User owner = userRepository.save(User.builder().name("Owner" + i).age(30).password("password").build());
+            houses.add(House.builder()
+                    .address("Address " + i)
+                    .owner(owner)
+                    .residents(new ArrayList<>(residents))
+                    .build());
+        }
+        houseRepository.saveAll(houses);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+}
@@ -1,17 +1,20 @@
 package com.zuzex.crudapplication.service;
 
+import com.zuzex.crudapplication.dto.UserPatchDto;
 import com.zuzex.crudapplication.dto.UserRequestDto;
 import com.zuzex.crudapplication.dto.UserResponseDto;
 import com.zuzex.crudapplication.exception.UserException;
 import com.zuzex.crudapplication.model.User;
 import com.zuzex.crudapplication.repository.UserRepository;
 import com.zuzex.crudapplication.security.auth.AuthenticationException;
+import com.zuzex.crudapplication.security.config.PrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
@@ -30,6 +33,12 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private EntityCacheEvictor entityCacheEvictor;
+
     @InjectMocks
     private UserService userService;
 
@@ -106,6 +115,7 @@ class UserServiceTest {
 
         verify(userRepository).findById(anyLong());
         verify(userRepository).deleteById(anyLong());
+        verify(principalCache).evict(user.getName());
     }
 
     @Test
@@ -118,31 +128,65 @@ class UserServiceTest {
     @Test
     void updateUser_WhenUserExists() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
 
-        UserResponseDto updatedUser = userService.updateUser(1L, userRequestDto);
+        String previousName = user.getName();
+        UserResponseDto updatedUser = userService.updateUser(1L, userRequestDto, null);
 
         assertNotNull(updatedUser);
         assertEquals(user.getId(), updatedUser.id());
         assertEquals(user.getName(), updatedUser.name());
 
         verify(userRepository).findById(anyLong());
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).saveAndFlush(any(User.class));
         verify(passwordEncoder).encode(anyString());
+        verify(principalCache).evict(previousName);
     }
 
     @Test
     void updateUser_WhenUserDoesNotExists() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
 
-        assertThrows(UserException.class, () -> userService.updateUser(1L, userRequestDto));
+        assertThrows(UserException.class, () -> userService.updateUser(1L, userRequestDto, null));
 
         verify(userRepository).findById(anyLong());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
     }
 
+    @Test
+    void updateUser_WhenVersionDiffersFromExpected_ThrowsPreconditionFailed() {
+        user.setVersion(3L);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
+        UserException exception = assertThrows(UserException.class,
+                () -> userService.updateUser(1L, userRequestDto, 2L));
 
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatus());
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(passwordEncoder, never()).encode(anyString());
+    }
 
-}
\ No newline at end of file
+    @Test
+    void patchUser_EncodesPasswordAndEvictsPrincipal() {
+        when(passwordEncoder.encode("newPassword")).thenReturn("encodedPassword");
+        when(userRepository.patch(1L, 2L, null, 31, "encodedPassword")).thenReturn(1);
+
+        assertEquals(3L, userService.patchUser(1L, new UserPatchDto(null, 31, "newPassword", 2L)));
+
+        verify(principalCache).evictById(1L);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void patchUser_WhenVersionIsStale_ThrowsConflict() {
+        when(userRepository.patch(1L, 2L, "Renamed", null, null)).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        UserException exception = assertThrows(UserException.class,
+                () -> userService.patchUser(1L, new UserPatchDto("Renamed", null, null, 2L)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verifyNoInteractions(principalCache);
+    }
+}